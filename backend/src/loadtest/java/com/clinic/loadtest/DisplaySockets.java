@@ -0,0 +1,149 @@
+package com.clinic.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Real WebSocket clients standing in for clinic displays and phones, spread round-robin over
+ * the clinics.
+ *
+ * Drivers mark when they issue an operation with {@link #issued}; each socket marks when the
+ * resulting change arrives. Fan-out time is from issue until the last subscriber of the
+ * clinic received it, so it includes the transaction, the coalescing window and the sends.
+ */
+class DisplaySockets implements AutoCloseable {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<WebSocketSession> sessions = new ArrayList<>();
+    private final Map<Long, AtomicInteger> subscribersByClinic = new ConcurrentHashMap<>();
+    private final Map<String, Delivery> deliveries = new ConcurrentHashMap<>();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong closedByServer = new AtomicLong();
+
+    void connect(String url, List<Long> clinicIds, int count) throws Exception {
+        StandardWebSocketClient client = new StandardWebSocketClient();
+        for (int i = 0; i < count; i++) {
+            Long clinicId = clinicIds.get(i % clinicIds.size());
+            WebSocketSession session = client.execute(new Display(), url).get(10, TimeUnit.SECONDS);
+            session.sendMessage(new TextMessage("{\"type\":\"subscribe\",\"clinicId\":" + clinicId + "}"));
+            subscribersByClinic.computeIfAbsent(clinicId, id -> new AtomicInteger()).incrementAndGet();
+            sessions.add(session);
+        }
+    }
+
+    /**
+     * Mark that an operation expected to broadcast {@code op} for the entry was issued at
+     * {@code issuedAt}. Called after the operation returns, as only then is the number known.
+     */
+    void issued(Long clinicId, long queueNumber, String op, long issuedAt) {
+        if (subscribersByClinic.containsKey(clinicId)) {
+            deliveries.computeIfAbsent(key(clinicId, queueNumber, op), k -> new Delivery()).issuedAt = issuedAt;
+        }
+    }
+
+    Map<String, Object> summary() {
+        List<Long> complete = new ArrayList<>();
+        List<Long> first = new ArrayList<>();
+        int incomplete = 0;
+        for (Map.Entry<String, Delivery> entry : deliveries.entrySet()) {
+            Delivery delivery = entry.getValue();
+            if (delivery.issuedAt == 0 || delivery.received.get() == 0) {
+                continue;
+            }
+            Long clinicId = Long.valueOf(entry.getKey().substring(0, entry.getKey().indexOf(':')));
+            first.add(delivery.firstAt - delivery.issuedAt);
+            if (delivery.received.get() >= subscribersByClinic.get(clinicId).get()) {
+                complete.add(delivery.lastAt - delivery.issuedAt);
+            } else {
+                incomplete++;
+            }
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("sockets", sessions.size());
+        summary.put("messagesReceived", messages.get());
+        summary.put("broadcasts", complete.size());
+        summary.put("incompleteBroadcasts", incomplete);
+        summary.put("firstDeliveryP50Ms", LatencyRecorder.millis(percentile(first, 0.50)));
+        summary.put("firstDeliveryP99Ms", LatencyRecorder.millis(percentile(first, 0.99)));
+        summary.put("fanOutP50Ms", LatencyRecorder.millis(percentile(complete, 0.50)));
+        summary.put("fanOutP99Ms", LatencyRecorder.millis(percentile(complete, 0.99)));
+        summary.put("socketsClosedByServer", closedByServer.get());
+        return summary;
+    }
+
+    @Override
+    public void close() {
+        sessions.forEach(session -> {
+            try {
+                session.close();
+            } catch (Exception ignored) {
+                // the server may already be gone
+            }
+        });
+    }
+
+    private static long percentile(List<Long> values, double p) {
+        return LatencyRecorder.percentile(values.stream().mapToLong(Long::longValue).sorted().toArray(), p);
+    }
+
+    private static String key(Long clinicId, long queueNumber, String op) {
+        return clinicId + ":" + queueNumber + ":" + op;
+    }
+
+    private final class Display extends TextWebSocketHandler {
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+            long now = System.nanoTime();
+            messages.incrementAndGet();
+            JsonNode root = mapper.readTree(message.getPayload());
+            if (!"queue_delta".equals(root.path("type").asText())) {
+                return;
+            }
+            long clinicId = root.path("clinicId").asLong();
+            for (JsonNode change : root.path("changes")) {
+                String op = change.path("op").asText();
+                if ("status".equals(op)) {
+                    op = change.path("status").asText().toLowerCase(Locale.ROOT);
+                }
+                deliveries.computeIfAbsent(key(clinicId, change.path("queueNumber").asLong(), op), k -> new Delivery())
+                        .received(now);
+            }
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+            if (!CloseStatus.NORMAL.equals(status)) {
+                closedByServer.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Delivery {
+        private volatile long issuedAt;
+        private final AtomicInteger received = new AtomicInteger();
+        private long firstAt;
+        private long lastAt;
+
+        private synchronized void received(long at) {
+            if (received.getAndIncrement() == 0) {
+                firstAt = at;
+            }
+            lastAt = Math.max(lastAt, at);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.clinic.loadtest;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+/**
+ * MySQL-compatible database for the simulation: an embedded MariaDB on a free port, or the
+ * external database given with {@code -Dloadtest.jdbc-url}.
+ */
+class EmbeddedDatabase implements AutoCloseable {
+
+    private static final String DATABASE = "clinic_loadtest";
+
+    private final DB db;
+    private final String url;
+
+    EmbeddedDatabase(LoadTestConfig config) throws Exception {
+        if (config.jdbcUrl != null) {
+            this.db = null;
+            this.url = config.jdbcUrl;
+            return;
+        }
+        DBConfigurationBuilder builder = DBConfigurationBuilder.newBuilder();
+        builder.setPort(0);
+        // must match the mariaDB4j-db-linux64 version in the loadtest profile
+        builder.setDatabaseVersion("mariadb-11.4.5");
+        builder.setDeletingTemporaryBaseAndDataDirsOnShutdown(true);
+        if ("root".equals(System.getProperty("user.name"))) {
+            // mariadbd refuses to start as root unless told to, e.g. in CI containers
+            builder.addArg("--user=root");
+        }
+        this.db = DB.newEmbeddedDB(builder.build());
+        db.start();
+        // the app ships only the MySQL driver, which MariaDB speaks; builder.getURL is jdbc:mariadb
+        String server = "jdbc:mysql://localhost:" + db.getConfiguration().getPort() + "/";
+        // over JDBC rather than DB.createDB, which needs the mariadb command-line client and its libraries
+        try (Connection connection = DriverManager.getConnection(server, "root", "")) {
+            connection.createStatement().execute("CREATE DATABASE IF NOT EXISTS " + DATABASE);
+        }
+        this.url = server + DATABASE;
+    }
+
+    String url() {
+        return url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (db != null) {
+            db.stop();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.clinic.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latency samples of one operation, with the statements each completed call sent. Keeps every
+ * sample so percentiles are exact; a run produces at most a few hundred thousand.
+ */
+class LatencyRecorder {
+
+    private final String name;
+    private long[] nanos = new long[1024];
+    private int count;
+    private long queries;
+    private final Map<String, Long> failures = new TreeMap<>();
+    private long skipped;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized void record(long elapsedNanos, long statements) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = elapsedNanos;
+        queries += statements;
+    }
+
+    synchronized void fail(String reason) {
+        failures.merge(reason, 1L, Long::sum);
+    }
+
+    // the driver was at its concurrency limit or had nothing to do when the tick came
+    synchronized void skip() {
+        skipped++;
+    }
+
+    synchronized Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("throughputPerSecond", round(count / seconds));
+        summary.put("p50Ms", millis(percentile(sorted, 0.50)));
+        summary.put("p99Ms", millis(percentile(sorted, 0.99)));
+        summary.put("maxMs", millis(count > 0 ? sorted[count - 1] : 0));
+        summary.put("queriesPerOperation", count > 0 ? round((double) queries / count) : 0);
+        summary.put("skipped", skipped);
+        summary.put("failures", new LinkedHashMap<>(failures));
+        return summary;
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    static double millis(long nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
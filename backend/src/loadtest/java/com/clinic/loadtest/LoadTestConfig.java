@@ -0,0 +1,78 @@
+package com.clinic.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Simulation settings, read from {@code -Dloadtest.*} system properties.
+ *
+ * The defaults describe the reference run (300 clinics, 50 kiosks, 2,000 sockets); keep them
+ * unchanged when comparing reports between builds.
+ */
+class LoadTestConfig {
+
+    final int clinics = intProperty("clinics", 300);
+    final int doctorsPerClinic = intProperty("doctors-per-clinic", 3);
+    final int appointmentsPerClinic = intProperty("appointments-per-clinic", 40);
+    final int kiosks = intProperty("kiosks", 50);
+    final int staffConsoles = intProperty("staff-consoles", 20);
+    final int pollers = intProperty("pollers", 200);
+    final int sockets = intProperty("sockets", 2000);
+    final int durationSeconds = intProperty("duration-seconds", 60);
+    final double checkInRate = doubleProperty("check-in-rate", 40);
+    final double callNextRate = doubleProperty("call-next-rate", 30);
+    final double markStatusRate = doubleProperty("mark-status-rate", 30);
+    final double pollRate = doubleProperty("poll-rate", 500);
+    final double rosterRate = doubleProperty("roster-rate", 20);
+    // callers racing on one clinic after the main phase, and how many patients they drain
+    final int contendedCallers = intProperty("contended-callers", 16);
+    final int contendedEntries = intProperty("contended-entries", 200);
+    // clients booking a few dozen slots at once, and how many bookings they attempt between them
+    final int bookingStormClients = intProperty("booking-storm-clients", 64);
+    final int bookingStormAttempts = intProperty("booking-storm-attempts", 4000);
+    final int bookingStormSlots = intProperty("booking-storm-slots", 60);
+    // simulated email provider latency per notification
+    final long emailLatencyMillis = intProperty("email-latency-ms", 0);
+    final long seed = intProperty("seed", 42);
+    // external MySQL instead of the embedded MariaDB, e.g. jdbc:mysql://localhost:3306/loadtest
+    final String jdbcUrl = System.getProperty("loadtest.jdbc-url");
+    final String username = System.getProperty("loadtest.username", "root");
+    final String password = System.getProperty("loadtest.password", "");
+    final String report = System.getProperty("loadtest.report", "target/loadtest/queue-load-report.json");
+    final String baseline = System.getProperty("loadtest.baseline");
+    final String label = System.getProperty("loadtest.label", "");
+
+    Map<String, Object> describe() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("clinics", clinics);
+        settings.put("doctorsPerClinic", doctorsPerClinic);
+        settings.put("appointmentsPerClinic", appointmentsPerClinic);
+        settings.put("kiosks", kiosks);
+        settings.put("staffConsoles", staffConsoles);
+        settings.put("pollers", pollers);
+        settings.put("sockets", sockets);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("checkInRate", checkInRate);
+        settings.put("callNextRate", callNextRate);
+        settings.put("markStatusRate", markStatusRate);
+        settings.put("pollRate", pollRate);
+        settings.put("rosterRate", rosterRate);
+        settings.put("contendedCallers", contendedCallers);
+        settings.put("contendedEntries", contendedEntries);
+        settings.put("bookingStormClients", bookingStormClients);
+        settings.put("bookingStormAttempts", bookingStormAttempts);
+        settings.put("bookingStormSlots", bookingStormSlots);
+        settings.put("emailLatencyMs", emailLatencyMillis);
+        settings.put("seed", seed);
+        settings.put("database", jdbcUrl != null ? "external" : "embedded-mariadb");
+        return settings;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.clinic.loadtest;
+
+import com.clinic.application.EmailNotifierService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extra beans for the simulated application: statement counting on the data source and an
+ * email notifier that only waits for the configured provider latency.
+ */
+@Configuration
+class LoadTestConfiguration {
+
+    static final AtomicLong EMAILS_SENT = new AtomicLong();
+
+    @Bean
+    static BeanPostProcessor queryCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? QueryCounter.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    EmailNotifierService simulatedEmailNotifier(@Value("${loadtest.email-latency-ms:0}") long latencyMillis) {
+        return new EmailNotifierService("loadtest", "loadtest@example.test", "Load Test") {
+            @Override
+            public void sendPlain(String to, String subject, String body) {
+                if (latencyMillis > 0) {
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                EMAILS_SENT.incrementAndGet();
+            }
+        };
+    }
+}
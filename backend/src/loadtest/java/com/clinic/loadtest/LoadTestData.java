@@ -0,0 +1,107 @@
+package com.clinic.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Clinics, doctors, patients and today's appointments for the simulation, inserted with
+ * batched JDBC so seeding thousands of rows takes seconds. Names carry a run id so repeated
+ * runs against an external database do not collide.
+ */
+class LoadTestData {
+
+    record Booking(long appointmentId, long clinicId, long patientId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    final List<Long> clinicIds = new ArrayList<>();
+    final List<Booking> bookings = new ArrayList<>();
+    Long contendedClinicId;
+    final List<Booking> contendedBookings = new ArrayList<>();
+    Long stormClinicId;
+    final List<Long> stormDoctorIds = new ArrayList<>();
+    final List<Long> stormPatientIds = new ArrayList<>();
+
+    LoadTestData(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void seed(LoadTestConfig config) {
+        for (int c = 0; c < config.clinics; c++) {
+            clinicIds.add(insertClinic("Load clinic " + runId + "-" + c));
+        }
+        for (Long clinicId : clinicIds) {
+            bookings.addAll(insertBookings(clinicId, config.doctorsPerClinic, config.appointmentsPerClinic));
+        }
+        // kiosks check patients in in a random but repeatable order
+        Collections.shuffle(bookings, new Random(config.seed));
+
+        contendedClinicId = insertClinic("Load clinic " + runId + "-contended");
+        contendedBookings.addAll(insertBookings(contendedClinicId, config.doctorsPerClinic, config.contendedEntries));
+
+        stormClinicId = insertClinic("Load clinic " + runId + "-storm");
+        String prefix = runId + "-" + stormClinicId;
+        stormDoctorIds.addAll(insertProfiles("doctor_profiles", prefix + "-d", config.doctorsPerClinic, stormClinicId));
+        stormPatientIds.addAll(insertProfiles("patient_profiles", prefix + "-p", config.bookingStormClients, null));
+    }
+
+    private Long insertClinic(String name) {
+        jdbcTemplate.update("INSERT INTO clinics (name, address, open_time, close_time) VALUES (?, ?, ?, ?)",
+                name, "Load test", LocalTime.MIN, LocalTime.of(23, 59));
+        return jdbcTemplate.queryForObject("SELECT id FROM clinics WHERE name = ?", Long.class, name);
+    }
+
+    private List<Booking> insertBookings(Long clinicId, int doctors, int appointments) {
+        String prefix = runId + "-" + clinicId;
+        List<Long> doctorIds = insertProfiles("doctor_profiles", prefix + "-d", doctors, clinicId);
+        List<Long> patientIds = insertProfiles("patient_profiles", prefix + "-p", appointments, null);
+
+        // a minute apart per doctor; no two active bookings may share a doctor and time
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < appointments; i++) {
+            Timestamp dateTime = Timestamp.valueOf(LocalDate.now().atStartOfDay().plusMinutes(i / doctorIds.size()));
+            rows.add(new Object[]{dateTime, clinicId, doctorIds.get(i % doctorIds.size()), patientIds.get(i)});
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO appointments (date_time, status, clinic_id, doctor_id, patient_id)
+                VALUES (?, 'SCHEDULED', ?, ?, ?)
+                """, rows);
+        return jdbcTemplate.query("SELECT id, patient_id FROM appointments WHERE clinic_id = ? ORDER BY id",
+                (rs, row) -> new Booking(rs.getLong("id"), clinicId, rs.getLong("patient_id")), clinicId);
+    }
+
+    private List<Long> insertProfiles(String table, String prefix, int count, Long clinicId) {
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> profiles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] userId = bytes(UUID.randomUUID());
+            String name = prefix + i;
+            users.add(new Object[]{userId, name + "@loadtest.example", name});
+            profiles.add(clinicId != null ? new Object[]{userId, name, clinicId} : new Object[]{userId, name});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, password_hash, full_name) VALUES (?, ?, 'x', ?)", users);
+        jdbcTemplate.batchUpdate(clinicId != null
+                ? "INSERT INTO " + table + " (user_id, full_name, clinic_id) VALUES (?, ?, ?)"
+                : "INSERT INTO " + table + " (user_id, full_name) VALUES (?, ?)", profiles);
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE full_name LIKE ? ORDER BY id",
+                Long.class, prefix + "%");
+    }
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,74 @@
+package com.clinic.loadtest;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts statements sent to the database by the current thread. A JDBC batch counts once,
+ * as it is one round trip with {@code rewriteBatchedStatements}.
+ */
+final class QueryCounter {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private QueryCounter() {
+    }
+
+    static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    static long current() {
+        return COUNT.get()[0];
+    }
+
+    static DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return counting(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return counting(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private static Connection counting(Connection connection) {
+        return proxy(Connection.class, connection, (method, result) ->
+                result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())
+                        ? proxy(method.getReturnType(), statement, (executed, ignored) -> {
+                            if (executed.getName().startsWith("execute")) {
+                                COUNT.get()[0]++;
+                            }
+                            return ignored;
+                        })
+                        : result);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, AfterCall afterCall) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return afterCall.apply(method, method.invoke(target, args));
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(QueryCounter.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private interface AfterCall {
+        Object apply(Method method, Object result);
+    }
+}
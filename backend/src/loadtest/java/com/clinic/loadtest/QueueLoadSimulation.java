@@ -0,0 +1,404 @@
+package com.clinic.loadtest;
+
+import com.clinic.ClinicApplication;
+import com.clinic.api.patients.dto.AppointmentRequest;
+import com.clinic.api.patients.dto.QueueEntryResponse;
+import com.clinic.api.staff.dto.AppointmentResponse;
+import com.clinic.application.AppointmentService;
+import com.clinic.application.QueueService;
+import com.clinic.application.SlotAvailabilityIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the queue with many clinics at once and writes a JSON report.
+ *
+ * The full application runs against an embedded MariaDB. Kiosks check patients in, staff
+ * consoles call patients, mark them served and refresh the roster, and phones poll their queue
+ * status, each at a fixed rate. Real WebSocket clients subscribe to the clinics the whole time.
+ * Afterwards, a set of callers race on one clinic's callNext to check that no patient is called
+ * twice, and a booking storm sends many clients at a few dozen slots to check that each is
+ * booked once: first through this node's slot map, then with the map dropped before every
+ * attempt, as if each came from a different node, so only the database's unique key stops
+ * double bookings.
+ *
+ * Run with {@code mvn -Ploadtest verify}, tuned with {@code -Dloadtest.*} properties (see
+ * {@link LoadTestConfig}). Pass {@code -Dloadtest.baseline=<earlier report>} to print the
+ * change against a previous build.
+ */
+public class QueueLoadSimulation {
+
+    private final LoadTestConfig config;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private QueueLoadSimulation(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new QueueLoadSimulation(new LoadTestConfig()).run();
+    }
+
+    private void run() throws Exception {
+        try (EmbeddedDatabase database = new EmbeddedDatabase(config);
+             ConfigurableApplicationContext context = start(database);
+             DisplaySockets sockets = new DisplaySockets();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            LoadTestData data = new LoadTestData(context.getBean(JdbcTemplate.class));
+            data.seed(config);
+            QueueService queueService = context.getBean(QueueService.class);
+            data.clinicIds.forEach(queueService::start);
+            queueService.start(data.contendedClinicId);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            sockets.connect("ws://localhost:" + port + "/ws", data.clinicIds, config.sockets);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("label", config.label);
+            report.put("startedAt", Instant.now().toString());
+            report.put("java", System.getProperty("java.version"));
+            report.put("config", config.describe());
+            report.put("operations", runMixedLoad(queueService, data, sockets, executor));
+            // let the last coalescing windows drain before counting deliveries
+            TimeUnit.SECONDS.sleep(2);
+            report.put("broadcast", sockets.summary());
+            report.put("contendedCallNext", runContendedCallNext(queueService, data, executor));
+            Map<String, Object> bookingStorm = new LinkedHashMap<>();
+            bookingStorm.put("singleNode", runBookingStorm(context, data, executor, LocalDate.now().plusDays(1), false));
+            bookingStorm.put("acrossNodes", runBookingStorm(context, data, executor, LocalDate.now().plusDays(2), true));
+            report.put("bookingStorm", bookingStorm);
+            report.put("emailsSent", LoadTestConfiguration.EMAILS_SENT.get());
+
+            Path path = Path.of(config.report);
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            mapper.writeValue(path.toFile(), report);
+            System.out.println(mapper.writeValueAsString(report));
+            if (config.baseline != null) {
+                compareWithBaseline(report);
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(EmbeddedDatabase database) {
+        // command-line arguments, since default properties rank below application.yml
+        return new SpringApplicationBuilder(ClinicApplication.class, LoadTestConfiguration.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + database.url(),
+                        "--spring.datasource.username=" + config.username,
+                        "--spring.datasource.password=" + config.password,
+                        "--spring.datasource.hikari.maximum-pool-size=40",
+                        // the simulation starts its own clinics
+                        "--app.queue.auto-start.enabled=false",
+                        "--spring.sendgrid.apiKey=loadtest",
+                        "--spring.sendgrid.fromEmail=loadtest@example.test",
+                        "--loadtest.email-latency-ms=" + config.emailLatencyMillis,
+                        "--logging.level.root=WARN");
+    }
+
+    private Map<String, Object> runMixedLoad(QueueService queueService, LoadTestData data,
+                                             DisplaySockets sockets, ExecutorService executor) throws Exception {
+        ConcurrentLinkedQueue<LoadTestData.Booking> arrivals = new ConcurrentLinkedQueue<>(data.bookings);
+        Map<Long, Long> numbersByAppointment = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<long[]> called = new ConcurrentLinkedQueue<>();
+        List<Long> queuedPatients = new ArrayList<>();
+
+        LatencyRecorder checkIns = new LatencyRecorder("checkIn");
+        LatencyRecorder calls = new LatencyRecorder("callNext");
+        LatencyRecorder served = new LatencyRecorder("markStatus");
+        LatencyRecorder polls = new LatencyRecorder("queueStatus");
+        LatencyRecorder rosters = new LatencyRecorder("listEntries");
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        List<RateDriver> drivers = List.of(
+                new RateDriver(checkIns, config.checkInRate, config.kiosks, executor, () -> {
+                    LoadTestData.Booking booking = arrivals.poll();
+                    if (booking == null) {
+                        return false;
+                    }
+                    long issuedAt = System.nanoTime();
+                    QueueEntryResponse entry = queueService.checkIn(booking.appointmentId());
+                    numbersByAppointment.put(booking.appointmentId(), entry.getQueueNumber());
+                    synchronized (queuedPatients) {
+                        queuedPatients.add(booking.patientId());
+                    }
+                    sockets.issued(booking.clinicId(), entry.getQueueNumber(), "added", issuedAt);
+                    return true;
+                }, end),
+                new RateDriver(calls, config.callNextRate, config.staffConsoles, executor, () -> {
+                    Long clinicId = data.clinicIds.get(ThreadLocalRandom.current().nextInt(data.clinicIds.size()));
+                    long issuedAt = System.nanoTime();
+                    AppointmentResponse next;
+                    try {
+                        next = queueService.callNext(clinicId);
+                    } catch (ResponseStatusException ex) {
+                        if (ex.getStatusCode().value() == 404) {
+                            return false; // nobody waiting at this clinic yet
+                        }
+                        throw ex;
+                    }
+                    Long number = numbersByAppointment.get(next.getId());
+                    if (number != null) {
+                        called.add(new long[]{clinicId, number});
+                        sockets.issued(clinicId, number, "called", issuedAt);
+                    }
+                    return true;
+                }, end),
+                new RateDriver(served, config.markStatusRate, config.staffConsoles, executor, () -> {
+                    long[] entry = called.poll();
+                    if (entry == null) {
+                        return false;
+                    }
+                    long issuedAt = System.nanoTime();
+                    queueService.markStatus(entry[0], entry[1], "SERVED");
+                    sockets.issued(entry[0], entry[1], "removed", issuedAt);
+                    return true;
+                }, end),
+                new RateDriver(polls, config.pollRate, config.pollers, executor, () -> {
+                    Long patientId;
+                    synchronized (queuedPatients) {
+                        if (queuedPatients.isEmpty()) {
+                            return false;
+                        }
+                        patientId = queuedPatients.get(ThreadLocalRandom.current().nextInt(queuedPatients.size()));
+                    }
+                    try {
+                        queueService.getStatusForPatient(patientId);
+                    } catch (ResponseStatusException ex) {
+                        if (ex.getStatusCode().value() != 404) {
+                            throw ex;
+                        }
+                        // already served; still a complete poll
+                    }
+                    return true;
+                }, end),
+                new RateDriver(rosters, config.rosterRate, config.staffConsoles, executor, () -> {
+                    Long clinicId = data.clinicIds.get(ThreadLocalRandom.current().nextInt(data.clinicIds.size()));
+                    queueService.listEntries(clinicId);
+                    // the roster is one select however long the queue is
+                    if (QueryCounter.current() != 1) {
+                        throw new IllegalStateException("listEntries sent " + QueryCounter.current() + " statements");
+                    }
+                    return true;
+                }, end));
+
+        List<Thread> threads = new ArrayList<>();
+        for (RateDriver driver : drivers) {
+            threads.add(Thread.ofPlatform().name("driver").start(driver));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (LatencyRecorder recorder : List.of(checkIns, calls, served, polls, rosters)) {
+            operations.put(recorder.name(), recorder.summary(seconds));
+        }
+        return operations;
+    }
+
+    // every caller drains the same clinic; each patient must be called exactly once
+    private Map<String, Object> runContendedCallNext(QueueService queueService, LoadTestData data,
+                                                     ExecutorService executor) throws Exception {
+        data.contendedBookings.forEach(booking -> queueService.checkIn(booking.appointmentId()));
+
+        LatencyRecorder recorder = new LatencyRecorder("contendedCallNext");
+        Set<Long> calledAppointments = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        long start = System.nanoTime();
+        List<Future<?>> callers = new ArrayList<>();
+        for (int i = 0; i < config.contendedCallers; i++) {
+            callers.add(executor.submit(() -> {
+                while (true) {
+                    QueryCounter.reset();
+                    long begin = System.nanoTime();
+                    try {
+                        AppointmentResponse next = queueService.callNext(data.contendedClinicId);
+                        recorder.record(System.nanoTime() - begin, QueryCounter.current());
+                        if (!calledAppointments.add(next.getId())) {
+                            duplicates.incrementAndGet();
+                        }
+                    } catch (ResponseStatusException ex) {
+                        if (ex.getStatusCode().value() == 404) {
+                            return;
+                        }
+                        recorder.fail(ex.getStatusCode().value() + " " + ex.getReason());
+                    }
+                }
+            }));
+        }
+        for (Future<?> caller : callers) {
+            caller.get();
+        }
+
+        Map<String, Object> summary = recorder.summary((System.nanoTime() - start) / 1e9);
+        Set<Long> expected = new HashSet<>();
+        data.contendedBookings.forEach(booking -> expected.add(booking.appointmentId()));
+        summary.put("callers", config.contendedCallers);
+        summary.put("duplicateCalls", duplicates.get());
+        summary.put("missedPatients", expected.size() - calledAppointments.size());
+        return summary;
+    }
+
+    // clients race for a few slots of one day; each slot must end up with exactly one active booking
+    private Map<String, Object> runBookingStorm(ConfigurableApplicationContext context, LoadTestData data,
+                                                ExecutorService executor, LocalDate day,
+                                                boolean acrossNodes) throws Exception {
+        AppointmentService appointmentService = context.getBean(AppointmentService.class);
+        SlotAvailabilityIndex slotAvailabilityIndex = context.getBean(SlotAvailabilityIndex.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        int doctors = data.stormDoctorIds.size();
+
+        LatencyRecorder recorder = new LatencyRecorder(acrossNodes ? "bookingStormAcrossNodes" : "bookingStorm");
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger rejectedByDatabase = new AtomicInteger();
+        long start = System.nanoTime();
+        List<Future<?>> clients = new ArrayList<>();
+        for (Long patientId : data.stormPatientIds) {
+            clients.add(executor.submit(() -> {
+                while (attempts.getAndIncrement() < config.bookingStormAttempts) {
+                    int slot = ThreadLocalRandom.current().nextInt(config.bookingStormSlots);
+                    AppointmentRequest request = new AppointmentRequest();
+                    request.setClinicId(data.stormClinicId);
+                    request.setDoctorId(data.stormDoctorIds.get(slot % doctors));
+                    request.setDateTime(day.atTime(8, 0).plusMinutes(15L * (slot / doctors)).toString());
+                    if (acrossNodes) {
+                        slotAvailabilityIndex.evictDoctor(request.getDoctorId());
+                    }
+                    QueryCounter.reset();
+                    long begin = System.nanoTime();
+                    try {
+                        appointmentService.bookAppointment(patientId, request);
+                        recorder.record(System.nanoTime() - begin, QueryCounter.current());
+                        booked.incrementAndGet();
+                    } catch (ResponseStatusException ex) {
+                        if (ex.getStatusCode().value() != 409) {
+                            recorder.fail(ex.getStatusCode().value() + " " + ex.getReason());
+                            continue;
+                        }
+                        // a conflict is a complete answer too
+                        recorder.record(System.nanoTime() - begin, QueryCounter.current());
+                        conflicts.incrementAndGet();
+                        if (ex.getCause() instanceof DataIntegrityViolationException) {
+                            rejectedByDatabase.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> client : clients) {
+            client.get();
+        }
+
+        Map<String, Object> summary = recorder.summary((System.nanoTime() - start) / 1e9);
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        Integer doubleBooked = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM (
+                    SELECT doctor_id, date_time FROM appointments
+                    WHERE clinic_id = ? AND status <> 'CANCELLED' AND date_time >= ? AND date_time < ?
+                    GROUP BY doctor_id, date_time HAVING COUNT(*) > 1) duplicates
+                """, Integer.class, data.stormClinicId, from, to);
+        Integer slotsTaken = jdbcTemplate.queryForObject("""
+                SELECT COUNT(DISTINCT doctor_id, date_time) FROM appointments
+                WHERE clinic_id = ? AND status <> 'CANCELLED' AND date_time >= ? AND date_time < ?
+                """, Integer.class, data.stormClinicId, from, to);
+        summary.put("clients", data.stormPatientIds.size());
+        summary.put("slots", config.bookingStormSlots);
+        summary.put("booked", booked.get());
+        summary.put("conflicts", conflicts.get());
+        summary.put("rejectedByDatabase", rejectedByDatabase.get());
+        summary.put("slotsTaken", slotsTaken);
+        summary.put("doubleBookedSlots", doubleBooked);
+        summary.put("databaseKey", probeActiveSlotKey(jdbcTemplate, data.stormClinicId, from, to));
+        return summary;
+    }
+
+    // copies one booked slot straight into the table, bypassing every node's slot map: the
+    // active copy must be rejected by the unique key and a cancelled copy accepted
+    private Map<String, Object> probeActiveSlotKey(JdbcTemplate jdbcTemplate, Long clinicId,
+                                                   LocalDateTime from, LocalDateTime to) {
+        Long bookingId = jdbcTemplate.queryForObject("""
+                SELECT MIN(id) FROM appointments
+                WHERE clinic_id = ? AND status <> 'CANCELLED' AND date_time >= ? AND date_time < ?
+                """, Long.class, clinicId, from, to);
+        String copy = """
+                INSERT INTO appointments (date_time, status, clinic_id, doctor_id, patient_id)
+                SELECT date_time, ?, clinic_id, doctor_id, patient_id FROM appointments WHERE id = ?
+                """;
+        boolean activeRejected;
+        try {
+            jdbcTemplate.update(copy, "SCHEDULED", bookingId);
+            activeRejected = false;
+        } catch (DataIntegrityViolationException ex) {
+            activeRejected = true;
+        }
+        boolean cancelledAccepted = jdbcTemplate.update(copy, "CANCELLED", bookingId) == 1;
+
+        Map<String, Object> probe = new LinkedHashMap<>();
+        probe.put("activeDuplicateRejected", activeRejected);
+        probe.put("cancelledDuplicateAccepted", cancelledAccepted);
+        return probe;
+    }
+
+    private void compareWithBaseline(Map<String, Object> report) throws Exception {
+        JsonNode baseline = mapper.readTree(Path.of(config.baseline).toFile());
+        JsonNode current = mapper.valueToTree(report);
+        System.out.printf("%nChange against %s%n", config.baseline);
+        current.path("operations").fields().forEachRemaining(op -> {
+            JsonNode before = baseline.path("operations").path(op.getKey());
+            System.out.printf("  %-12s throughput %s  p99 %s  queries/op %s%n", op.getKey(),
+                    change(before.path("throughputPerSecond"), op.getValue().path("throughputPerSecond")),
+                    change(before.path("p99Ms"), op.getValue().path("p99Ms")),
+                    change(before.path("queriesPerOperation"), op.getValue().path("queriesPerOperation")));
+        });
+        current.path("bookingStorm").fields().forEachRemaining(run -> {
+            JsonNode before = baseline.path("bookingStorm").path(run.getKey());
+            System.out.printf("  %-12s throughput %s  p99 %s  queries/op %s%n", run.getKey(),
+                    change(before.path("throughputPerSecond"), run.getValue().path("throughputPerSecond")),
+                    change(before.path("p99Ms"), run.getValue().path("p99Ms")),
+                    change(before.path("queriesPerOperation"), run.getValue().path("queriesPerOperation")));
+        });
+        System.out.printf("  %-12s p99 %s%n", "fanOut",
+                change(baseline.path("broadcast").path("fanOutP99Ms"), current.path("broadcast").path("fanOutP99Ms")));
+    }
+
+    private static String change(JsonNode before, JsonNode after) {
+        if (!before.isNumber() || before.asDouble() == 0) {
+            return after.asText() + " (n/a)";
+        }
+        return String.format("%s (%+.1f%%)", after.asText(), (after.asDouble() / before.asDouble() - 1) * 100);
+    }
+}
@@ -0,0 +1,268 @@
+package com.clinic.loadtest;
+
+import com.clinic.domain.entity.QueueEntry;
+import com.clinic.domain.enums.QueueStatus;
+import com.clinic.domain.queue.Queue;
+import com.clinic.domain.queue.QueuePriorities;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the in-memory call order with priority classes, without a database.
+ *
+ * For each queue size, the queue is filled with waiting entries of mixed classes and then kept
+ * at that size while entries are checked in, re-prioritised and called; the cost per operation
+ * should grow with log n only. Check-in and call threads then share one queue, claiming and
+ * releasing entries as QueueService does, for the throughput under contention. A simulated clinic day then compares waiting times per class
+ * under the configured head starts with strict fast-track-first ordering, where a steady flow
+ * of fast-tracks holds regular patients back for as long as it lasts.
+ *
+ * Runs with the {@code loadtest} profile before {@link QueueLoadSimulation}; tune it with
+ * {@code -Dloadtest.priority-sizes}, {@code -Dloadtest.priority-ops},
+ * {@code -Dloadtest.priority-threads} and {@code -Dloadtest.priority-classes}.
+ */
+public class QueuePriorityBenchmark {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 1, 6);
+    private static final LocalDateTime OPEN = DAY.atTime(8, 0);
+    private static final String[] MIX = {"regular", "regular", "regular", "regular", "regular",
+            "regular", "elderly", "elderly", "fast-track", "urgent"};
+
+    private final QueuePriorities priorities = QueuePriorities.parse(
+            System.getProperty("loadtest.priority-classes", "urgent:120,fast-track:30,elderly:15,regular:0"));
+    private final int[] sizes = Arrays.stream(System.getProperty("loadtest.priority-sizes", "1000,10000,100000")
+            .split(",")).mapToInt(size -> Integer.parseInt(size.trim())).toArray();
+    private final int operations = Integer.getInteger("loadtest.priority-ops", 200_000);
+    private final int threads = Integer.getInteger("loadtest.priority-threads", 8);
+    private final String report = System.getProperty("loadtest.priority-report",
+            "target/loadtest/queue-priority-benchmark.json");
+    private final long seed = Long.getLong("loadtest.seed", 42);
+    private final Random random = new Random(seed);
+
+    public static void main(String[] args) throws Exception {
+        new QueuePriorityBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startedAt", Instant.now().toString());
+        result.put("java", System.getProperty("java.version"));
+        result.put("classes", priorities.classes());
+
+        // one warm-up pass so the first size is not measured on interpreted code
+        measure(sizes[0]);
+        List<Map<String, Object>> scaling = new ArrayList<>();
+        for (int size : sizes) {
+            scaling.add(measure(size));
+        }
+        result.put("scaling", scaling);
+        // warmed up the same way
+        measureConcurrent();
+        result.put("concurrent", measureConcurrent());
+
+        // a busy day: 0.8 fast-tracks and 0.3 regular patients a minute against one call a minute
+        Map<String, Double> arrivals = new LinkedHashMap<>();
+        arrivals.put("fast-track", 0.8);
+        arrivals.put("regular", 0.3);
+        Map<String, Object> clinicDay = new LinkedHashMap<>();
+        clinicDay.put("configured", simulateDay(priorities, arrivals));
+        clinicDay.put("strictFastTrackFirst", simulateDay(QueuePriorities.parse("fast-track:1000000"), arrivals));
+        result.put("clinicDay", clinicDay);
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Path path = Path.of(report);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        mapper.writeValue(path.toFile(), result);
+        System.out.println(mapper.writeValueAsString(result));
+    }
+
+    private Map<String, Object> measure(int size) {
+        Queue queue = Queue.createOrMerge(1L, DAY, null, List.of(), priorities);
+        List<QueueEntry> entries = new ArrayList<>(size + operations);
+        int number = 0;
+        for (; number < size; number++) {
+            QueueEntry entry = entry(number + 1, OPEN.plusSeconds(random.nextInt(8 * 3600)), randomClass());
+            queue.apply(entry);
+            entries.add(entry);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            QueueEntry entry = entry(++number, OPEN.plusSeconds(8 * 3600 + i), randomClass());
+            queue.apply(entry);
+            entries.add(entry);
+            callNext(queue);
+        }
+        long checkInAndCall = System.nanoTime() - start;
+
+        List<Integer> waiting = entries.stream()
+                .map(QueueEntry::getQueueNumber)
+                .filter(n -> queue.findEntry(n).map(QueueEntry::isWaiting).orElse(false))
+                .toList();
+        start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            // as QueueService.changePriority: change a copy, then apply the saved state
+            QueueEntry entry = queue.findEntry(waiting.get(random.nextInt(waiting.size()))).orElseThrow();
+            String priorityClass = randomClass();
+            entry.setPriorityClass(QueuePriorities.REGULAR.equals(priorityClass) ? null : priorityClass);
+            queue.apply(entry);
+        }
+        long changePriority = System.nanoTime() - start;
+
+        if (queue.waitingCount() != size) {
+            throw new IllegalStateException("Queue drifted from " + size + " to " + queue.waitingCount() + " entries");
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("waiting", size);
+        row.put("checkInAndCallNanos", checkInAndCall / operations);
+        row.put("changePriorityNanos", changePriority / operations);
+        return row;
+    }
+
+    private Map<String, Object> simulateDay(QueuePriorities policy, Map<String, Double> perMinute) {
+        // the same arrivals for every policy
+        Random arrivals = new Random(seed);
+        Queue queue = Queue.createOrMerge(1L, DAY, null, List.of(), policy);
+        Map<Integer, String> arrivedAs = new HashMap<>();
+        Map<String, List<Long>> waits = new HashMap<>();
+        Map<String, LocalDateTime> nextArrival = new HashMap<>();
+        perMinute.forEach((priorityClass, rate) -> nextArrival.put(priorityClass, OPEN.plus(interArrival(arrivals, rate))));
+        int number = 0;
+        LocalDateTime close = OPEN.plusHours(9);
+        for (LocalDateTime now = OPEN; now.isBefore(close); now = now.plusMinutes(1)) {
+            for (Map.Entry<String, Double> flow : perMinute.entrySet()) {
+                String priorityClass = flow.getKey();
+                while (!nextArrival.get(priorityClass).isAfter(now)) {
+                    LocalDateTime arrivedAt = nextArrival.get(priorityClass);
+                    QueueEntry entry = entry(++number, arrivedAt, null);
+                    if (QueuePriorities.FAST_TRACK.equals(priorityClass)) {
+                        entry.fastTrack();
+                    }
+                    queue.apply(entry);
+                    arrivedAs.put(number, priorityClass);
+                    nextArrival.put(priorityClass, arrivedAt.plus(interArrival(arrivals, flow.getValue())));
+                }
+            }
+            QueueEntry called = callNext(queue);
+            if (called != null) {
+                waits.computeIfAbsent(arrivedAs.get(called.getQueueNumber()), key -> new ArrayList<>())
+                        .add(Duration.between(called.getCheckedInAt(), now).toMinutes());
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        waits.forEach((priorityClass, minutes) -> {
+            long[] sorted = minutes.stream().mapToLong(Long::longValue).sorted().toArray();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("called", sorted.length);
+            stats.put("p50WaitMinutes", sorted[sorted.length / 2]);
+            stats.put("p95WaitMinutes", sorted[(int) (sorted.length * 0.95)]);
+            stats.put("maxWaitMinutes", sorted[sorted.length - 1]);
+            summary.put(priorityClass, stats);
+        });
+        summary.put("leftWaiting", queue.waitingCount());
+        return summary;
+    }
+
+    /**
+     * The given number of check-in threads and as many call threads on one queue, until every
+     * check-in has been called and served; each check-in is three applies and a claim.
+     */
+    private Map<String, Object> measureConcurrent() throws InterruptedException {
+        Queue queue = Queue.createOrMerge(1L, DAY, null, List.of(), priorities);
+        queue.start();
+        int total = operations;
+        AtomicInteger numbers = new AtomicInteger();
+        AtomicInteger producersLeft = new AtomicInteger(threads);
+        AtomicInteger served = new AtomicInteger();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long threadSeed = seed + t;
+            workers.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(threadSeed);
+                int number;
+                while ((number = numbers.incrementAndGet()) <= total) {
+                    queue.apply(entry(number, OPEN.plusSeconds(random.nextInt(8 * 3600)),
+                            MIX[random.nextInt(MIX.length)]));
+                }
+                producersLeft.decrementAndGet();
+            }));
+            workers.add(new Thread(() -> {
+                while (producersLeft.get() > 0 || queue.waitingCount() > 0) {
+                    QueueEntry called = callNext(queue);
+                    if (called == null) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    called.updateStatus(QueueStatus.SERVED);
+                    queue.apply(called);
+                    served.incrementAndGet();
+                }
+            }));
+        }
+
+        long start = System.nanoTime();
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (served.get() != total) {
+            throw new IllegalStateException("Served " + served.get() + " of " + total + " check-ins");
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("checkInThreads", threads);
+        row.put("callThreads", threads);
+        row.put("checkIns", total);
+        row.put("checkInsPerSecond", Math.round(total / seconds));
+        row.put("operationsPerSecond", Math.round(3 * total / seconds));
+        return row;
+    }
+
+    // as QueueService.callNext: claim the entry, apply the committed call, release the claim
+    private static QueueEntry callNext(Queue queue) {
+        QueueEntry next = queue.claimNext();
+        if (next != null) {
+            next.updateStatus(QueueStatus.CALLED);
+            queue.apply(next);
+            queue.release(next.getQueueNumber());
+        }
+        return next;
+    }
+
+    private static Duration interArrival(Random random, double perMinute) {
+        return Duration.ofSeconds(Math.max(1, (long) (-Math.log(1 - random.nextDouble()) / perMinute * 60)));
+    }
+
+    private String randomClass() {
+        return MIX[random.nextInt(MIX.length)];
+    }
+
+    private static QueueEntry entry(int number, LocalDateTime checkedInAt, String priorityClass) {
+        QueueEntry entry = new QueueEntry();
+        entry.setClinicId(1L);
+        entry.setQueueDate(DAY);
+        entry.setQueueNumber(number);
+        entry.setStatus(QueueStatus.WAITING);
+        entry.setCheckedInAt(checkedInAt);
+        entry.setPriorityClass(QueuePriorities.REGULAR.equals(priorityClass) ? null : priorityClass);
+        return entry;
+    }
+}
@@ -0,0 +1,84 @@
+package com.clinic.loadtest;
+
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues one operation at a fixed rate, open loop, with at most {@code concurrency} in flight
+ * (kiosks, staff consoles, phones). Ticks that find every slot busy are counted as skipped
+ * rather than queued, so an overloaded build shows up as lower throughput instead of an
+ * ever-growing backlog.
+ */
+class RateDriver implements Runnable {
+
+    interface Operation {
+        /**
+         * @return false when there was nothing to do, e.g. no called patient to mark served
+         */
+        boolean run() throws Exception;
+    }
+
+    private final LatencyRecorder recorder;
+    private final double perSecond;
+    private final Semaphore slots;
+    private final ExecutorService executor;
+    private final Operation operation;
+    private final long endNanos;
+
+    RateDriver(LatencyRecorder recorder, double perSecond, int concurrency, ExecutorService executor,
+               Operation operation, long endNanos) {
+        this.recorder = recorder;
+        this.perSecond = perSecond;
+        this.slots = new Semaphore(concurrency);
+        this.executor = executor;
+        this.operation = operation;
+        this.endNanos = endNanos;
+    }
+
+    @Override
+    public void run() {
+        if (perSecond <= 0) {
+            return;
+        }
+        long period = (long) (1_000_000_000L / perSecond);
+        long next = System.nanoTime();
+        while (next < endNanos) {
+            next += period;
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!slots.tryAcquire()) {
+                recorder.skip();
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    invoke();
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    private void invoke() {
+        QueryCounter.reset();
+        long start = System.nanoTime();
+        try {
+            if (operation.run()) {
+                recorder.record(System.nanoTime() - start, QueryCounter.current());
+            } else {
+                recorder.skip();
+            }
+        } catch (ResponseStatusException ex) {
+            recorder.fail(ex.getStatusCode().value() + " " + ex.getReason());
+        } catch (Exception ex) {
+            recorder.fail(ex.getMessage() != null ? ex.getClass().getSimpleName() + ": " + ex.getMessage()
+                    : ex.getClass().getSimpleName());
+        }
+    }
+}
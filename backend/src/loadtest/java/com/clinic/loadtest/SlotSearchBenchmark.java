@@ -0,0 +1,117 @@
+package com.clinic.loadtest;
+
+import com.clinic.domain.schedule.EarliestSlots;
+import com.clinic.domain.schedule.SlotAvailability;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the next-available-slot search over a clinic's doctors, without a database.
+ *
+ * A clinic's doctors get a few weeks of 15-minute slots, mostly booked, and the earliest free
+ * slots are found by the k-way merge the search endpoint uses and, for comparison, by listing
+ * every doctor's free slots and sorting them. Both must return the same slots.
+ *
+ * Runs with the {@code loadtest} profile before {@link QueueLoadSimulation}; tune it with
+ * {@code -Dloadtest.slot-doctors}, {@code -Dloadtest.slot-days}, {@code -Dloadtest.slot-booked}
+ * and {@code -Dloadtest.slot-limit}.
+ */
+public class SlotSearchBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 6);
+    private static final int ROUNDS = 2_000;
+
+    private final int doctors = Integer.getInteger("loadtest.slot-doctors", 30);
+    private final int searchDays = Integer.getInteger("loadtest.slot-days", 28);
+    private final double bookedShare = Double.parseDouble(System.getProperty("loadtest.slot-booked", "0.9"));
+    private final int limit = Integer.getInteger("loadtest.slot-limit", 10);
+    private final String report = System.getProperty("loadtest.slot-report",
+            "target/loadtest/slot-search-benchmark.json");
+    private final Random random = new Random(Long.getLong("loadtest.seed", 42));
+
+    public static void main(String[] args) throws Exception {
+        new SlotSearchBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        List<List<SlotAvailability>> clinic = new ArrayList<>();
+        for (long doctorId = 1; doctorId <= doctors; doctorId++) {
+            List<SlotAvailability> days = new ArrayList<>();
+            for (int day = 0; day < searchDays; day++) {
+                SlotAvailability availability = new SlotAvailability(doctorId, 1L, FIRST_DAY.plusDays(day),
+                        LocalTime.of(9, 0), LocalTime.of(17, 0), 15);
+                for (int slot = 0; slot < availability.slotCount(); slot++) {
+                    if (random.nextDouble() < bookedShare) {
+                        availability.claim(availability.slotTime(slot));
+                    }
+                }
+                days.add(availability);
+            }
+            clinic.add(days);
+        }
+        // search from mid-morning of the first day, as a patient would
+        LocalDateTime now = FIRST_DAY.atTime(10, 7);
+
+        List<EarliestSlots.FreeSlot> merged = EarliestSlots.find(clinic, now, limit);
+        if (!merged.equals(sortAll(clinic, now))) {
+            throw new IllegalStateException("Merge and full sort disagree on the earliest slots");
+        }
+        // one warm-up pass of each so neither is measured on interpreted code
+        time(() -> EarliestSlots.find(clinic, now, limit));
+        time(() -> sortAll(clinic, now));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startedAt", Instant.now().toString());
+        result.put("java", System.getProperty("java.version"));
+        result.put("doctors", doctors);
+        result.put("days", searchDays);
+        result.put("bookedShare", bookedShare);
+        result.put("limit", limit);
+        result.put("mergeMicros", time(() -> EarliestSlots.find(clinic, now, limit)));
+        result.put("sortAllMicros", time(() -> sortAll(clinic, now)));
+        result.put("earliest", merged.isEmpty() ? null : merged.get(0).dateTime().toString());
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Path path = Path.of(report);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        mapper.writeValue(path.toFile(), result);
+        System.out.println(mapper.writeValueAsString(result));
+    }
+
+    // every free slot of every doctor and day, sorted; what a search without the merge would do
+    private List<EarliestSlots.FreeSlot> sortAll(List<List<SlotAvailability>> clinic, LocalDateTime now) {
+        List<EarliestSlots.FreeSlot> all = new ArrayList<>();
+        for (List<SlotAvailability> days : clinic) {
+            for (SlotAvailability day : days) {
+                for (LocalDateTime slot : day.freeSlots()) {
+                    if (!slot.isBefore(now)) {
+                        all.add(new EarliestSlots.FreeSlot(day.getDoctorId(), slot));
+                    }
+                }
+            }
+        }
+        all.sort(Comparator.comparing(EarliestSlots.FreeSlot::dateTime).thenComparing(EarliestSlots.FreeSlot::doctorId));
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    private static double time(Runnable search) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            search.run();
+        }
+        return Math.round((System.nanoTime() - start) / (ROUNDS * 1_000.0) * 10) / 10.0;
+    }
+}
@@ -3,8 +3,10 @@ package com.clinic;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ClinicApplication {
     public static void main(String[] args) {
         // Load .env file explicitly, ignore if missing
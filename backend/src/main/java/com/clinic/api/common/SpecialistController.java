@@ -29,9 +29,15 @@ public class SpecialistController {
     @GetMapping("/specialists/{id}/appointments")
     public ResponseEntity<List<AppointmentResponse>> listAppointmentsForSpecialist(
         @PathVariable Long id,
-        @RequestParam("date") String dateStr
+        @RequestParam(value = "date", required = false) String dateStr,
+        @RequestParam(value = "when", required = false) String when,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", required = false) Integer limit
     ) {
+        if (dateStr == null || dateStr.isBlank()) {
+            return appointmentService.listForSpecialist(id, when, cursor, limit).toResponseEntity();
+        }
         LocalDate date = LocalDate.parse(dateStr);
-        return ResponseEntity.ok(appointmentService.listForSpecialist(id, date));
+        return appointmentService.listForSpecialist(id, date, cursor, limit).toResponseEntity();
     }
 }
@@ -32,8 +32,11 @@ public class DoctorController {
     }
 
     @GetMapping("/{doctorId}/appointments")
-    public ResponseEntity<List<AppointmentResponse>> getAppointments(@PathVariable Long doctorId, @RequestParam(required = false) String date) {
-        return ResponseEntity.ok(doctorService.getAppointments(doctorId, date));
+    public ResponseEntity<List<AppointmentResponse>> getAppointments(@PathVariable Long doctorId,
+                                                                     @RequestParam(required = false) String date,
+                                                                     @RequestParam(required = false) String cursor,
+                                                                     @RequestParam(required = false) Integer limit) {
+        return doctorService.getAppointments(doctorId, date, cursor, limit).toResponseEntity();
     }
 
     @PostMapping("/{doctorId}/appointments/notes")
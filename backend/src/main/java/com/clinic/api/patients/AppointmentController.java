@@ -3,7 +3,9 @@ package com.clinic.api.patients;
 import com.clinic.api.patients.dto.AppointmentRequest;
 import com.clinic.api.patients.dto.AppointmentResponse;
 import com.clinic.api.patients.dto.AppointmentStatusUpdateRequest;
+import com.clinic.api.patients.dto.AvailableSlotResponse;
 import com.clinic.application.AppointmentService;
+import com.clinic.application.SchedulingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -22,9 +24,11 @@ import java.util.List;
 @Tag(name = "Appointments", description = "API for managing patient appointments")
 public class AppointmentController {
     private final AppointmentService appointmentService;
+    private final SchedulingService schedulingService;
 
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService, SchedulingService schedulingService) {
         this.appointmentService = appointmentService;
+        this.schedulingService = schedulingService;
     }
 
     @PostMapping("/patients/{patientId}/appointments")
@@ -47,10 +51,12 @@ public class AppointmentController {
     public ResponseEntity<List<AppointmentResponse>> listAppointments(
             @PathVariable Long patientId,
             @RequestParam(required = false) String startDate,
-            @RequestParam(required = false) String endDate) {
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         LocalDate start = startDate != null ? LocalDate.parse(startDate) : null;
         LocalDate end = endDate != null ? LocalDate.parse(endDate) : null;
-        return ResponseEntity.ok(appointmentService.getPatientAppointments(patientId, start, end));
+        return appointmentService.getPatientAppointments(patientId, start, end, cursor, limit).toResponseEntity();
     }
 
     // DELETE /api/v1/appointments/{id}
@@ -60,16 +66,39 @@ public class AppointmentController {
         return ResponseEntity.noContent().build();
     }
 
-    // GET /api/v1/clinics/{clinicId}/appointments?date=YYYY-MM-DD
+    // GET /api/v1/clinics/{clinicId}/appointments?date=YYYY-MM-DD&cursor=...&limit=...
     @GetMapping("/clinics/{clinicId}/appointments")
-    @Operation(summary = "List appointments for a clinic")
-    public List<AppointmentResponse> listForClinic(
+    @Operation(summary = "List appointments for a clinic",
+        description = "Ordered by time; when more remain, X-Next-Cursor holds the cursor for the next page")
+    public ResponseEntity<List<AppointmentResponse>> listForClinic(
         @PathVariable("clinicId") Long clinicId,
-        @RequestParam(value = "date", required = false) String date) {
+        @RequestParam(value = "date", required = false) String date,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", required = false) Integer limit) {
         if (date == null || date.isBlank()) {
-            return appointmentService.listForClinic(clinicId);
+            return appointmentService.listForClinic(clinicId, cursor, limit).toResponseEntity();
         }
-        return appointmentService.listForClinicOnDate(clinicId, date);
+        return appointmentService.listForClinicOnDate(clinicId, date, cursor, limit).toResponseEntity();
+    }
+
+    // GET /api/v1/clinics/{clinicId}/available-slots?from=YYYY-MM-DD&to=YYYY-MM-DD&specialty=...&limit=...
+    @GetMapping("/clinics/{clinicId}/available-slots")
+    @Operation(summary = "Find the next available slots at a clinic",
+        description = "Earliest free slots across the clinic's doctors, optionally for one specialty; defaults to the next two weeks")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Free slots in time order"),
+        @ApiResponse(responseCode = "400", description = "Invalid date range or limit"),
+        @ApiResponse(responseCode = "404", description = "Clinic not found")
+    })
+    public ResponseEntity<List<AvailableSlotResponse>> findAvailableSlots(
+        @PathVariable("clinicId") Long clinicId,
+        @RequestParam(value = "from", required = false) String from,
+        @RequestParam(value = "to", required = false) String to,
+        @RequestParam(value = "specialty", required = false) String specialty,
+        @RequestParam(value = "limit", required = false) Integer limit) {
+        LocalDate start = from != null && !from.isBlank() ? LocalDate.parse(from) : null;
+        LocalDate end = to != null && !to.isBlank() ? LocalDate.parse(to) : null;
+        return ResponseEntity.ok(schedulingService.findEarliestSlots(clinicId, start, end, specialty, limit));
     }
 
     @PatchMapping("/appointments/{appointmentId}/reschedule")
@@ -3,18 +3,23 @@ package com.clinic.api.patients;
 import com.clinic.api.patients.dto.QueueEntryResponse;
 import com.clinic.api.patients.dto.QueueStatusResponse;
 import com.clinic.application.QueueService;
+import com.clinic.application.QueueStatusStreams;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/v1/patients")
 @Tag(name = "Queue", description = "API for patient queue operations")
 public class QueueController {
     private final QueueService queueService;
+    private final QueueStatusStreams queueStatusStreams;
 
-    public QueueController(QueueService queueService) {
+    public QueueController(QueueService queueService, QueueStatusStreams queueStatusStreams) {
         this.queueService = queueService;
+        this.queueStatusStreams = queueStatusStreams;
     }
 
     @PostMapping("/appointments/{appointmentId}/check-in")
@@ -26,4 +31,10 @@ public class QueueController {
     public ResponseEntity<QueueStatusResponse> getQueueStatus(@PathVariable Long patientId) {
         return ResponseEntity.ok(queueService.getStatusForPatient(patientId));
     }
+
+    // pushes "queue-status" events when the patient's status changes, "not-queued" when they have no active entry
+    @GetMapping(value = "/{patientId}/queue-status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQueueStatus(@PathVariable Long patientId) {
+        return queueStatusStreams.open(patientId);
+    }
 }
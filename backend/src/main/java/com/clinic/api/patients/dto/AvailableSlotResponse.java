@@ -0,0 +1,22 @@
+package com.clinic.api.patients.dto;
+
+import java.time.LocalDateTime;
+
+public class AvailableSlotResponse {
+    private Long clinicId;
+    private Long doctorId;
+    private String doctorName;
+    private String specialty;
+    private LocalDateTime dateTime;
+
+    public Long getClinicId() { return clinicId; }
+    public void setClinicId(Long clinicId) { this.clinicId = clinicId; }
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+    public String getDoctorName() { return doctorName; }
+    public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
+    public String getSpecialty() { return specialty; }
+    public void setSpecialty(String specialty) { this.specialty = specialty; }
+    public LocalDateTime getDateTime() { return dateTime; }
+    public void setDateTime(LocalDateTime dateTime) { this.dateTime = dateTime; }
+}
@@ -7,6 +7,7 @@ public class QueueStatusResponse {
     private Long patientId;
     private Integer currentNumber;
     private Integer numbersAway;
+    private Integer estimatedWaitMinutes;
     private String state; // ACTIVE or PAUSED
 
     // getters and setters
@@ -22,6 +23,8 @@ public class QueueStatusResponse {
     public void setCurrentNumber(Integer currentNumber) { this.currentNumber = currentNumber; }
     public Integer getNumbersAway() { return numbersAway; }
     public void setNumbersAway(Integer numbersAway) { this.numbersAway = numbersAway; }
+    public Integer getEstimatedWaitMinutes() { return estimatedWaitMinutes; }
+    public void setEstimatedWaitMinutes(Integer estimatedWaitMinutes) { this.estimatedWaitMinutes = estimatedWaitMinutes; }
     public String getState() { return state; }
     public void setState(String state) { this.state = state; }
 }
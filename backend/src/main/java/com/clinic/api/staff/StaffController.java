@@ -2,6 +2,8 @@ package com.clinic.api.staff;
 
 import com.clinic.api.staff.dto.AppointmentRequest;
 import com.clinic.api.staff.dto.AppointmentResponse;
+import com.clinic.api.staff.dto.BulkCheckInRequest;
+import com.clinic.api.staff.dto.BulkCheckInResult;
 import com.clinic.api.staff.dto.ClinicQueueStatusResponse;
 import com.clinic.api.staff.dto.DailyReportResponse;
 import com.clinic.api.staff.dto.QueueEntrySummaryResponse;
@@ -18,6 +20,7 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -63,17 +66,19 @@ public class StaffController {
     public ResponseEntity<List<AppointmentResponse>> getClinicAppointments(
             @RequestParam Long clinicId,
             @RequestParam(required = false) String date,
-            @RequestParam(required = false, defaultValue = "all") String type) {
+            @RequestParam(required = false, defaultValue = "all") String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
         if ("upcoming".equalsIgnoreCase(type)) {
-            return ResponseEntity.ok(staffService.getUpcomingClinicAppointments(clinicId));
+            return staffService.getUpcomingClinicAppointments(clinicId, cursor, limit).toResponseEntity();
         }
 
         if (date != null && !date.isBlank()) {
             LocalDate targetDate = LocalDate.parse(date);
-            return ResponseEntity.ok(staffService.getClinicAppointments(clinicId, targetDate));
+            return staffService.getClinicAppointments(clinicId, targetDate, cursor, limit).toResponseEntity();
         } else {
-            return ResponseEntity.ok(staffService.getClinicAppointments(clinicId, null));
+            return staffService.getClinicAppointments(clinicId, null, cursor, limit).toResponseEntity();
         }
     }
 
@@ -90,9 +95,15 @@ public class StaffController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/queue/check-in")
+    public ResponseEntity<List<BulkCheckInResult>> bulkCheckIn(@RequestBody @Valid BulkCheckInRequest request) {
+        return ResponseEntity.ok(queueService.checkInAll(request.getAppointmentIds()));
+    }
+
     @PostMapping("/queue/next")
-    public ResponseEntity<AppointmentResponse> nextQueue(@RequestParam Long clinicId) {
-        return ResponseEntity.ok(queueService.callNext(clinicId));
+    public ResponseEntity<AppointmentResponse> nextQueue(@RequestParam Long clinicId,
+                                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(queueService.callNext(clinicId, idempotencyKey));
     }
 
     @PatchMapping("/queue/{queueNumber}/status")
@@ -120,6 +131,14 @@ public class StaffController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/queue/{queueNumber}/priority")
+    public ResponseEntity<Void> changePriority(@PathVariable Long queueNumber,
+                                               @RequestParam Long clinicId,
+                                               @RequestParam String priorityClass) {
+        queueService.changePriority(clinicId, queueNumber, priorityClass);
+        return ResponseEntity.ok().build();
+    }
+
     @GetMapping("/queue/status")
     public ResponseEntity<ClinicQueueStatusResponse> getQueueStatus(@RequestParam Long clinicId) {
         return ResponseEntity.ok(queueService.getClinicStatus(clinicId));
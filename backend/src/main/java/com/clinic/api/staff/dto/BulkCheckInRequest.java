@@ -0,0 +1,20 @@
+package com.clinic.api.staff.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkCheckInRequest {
+    @NotEmpty
+    @Size(max = 500)
+    private List<Long> appointmentIds;
+
+    public List<Long> getAppointmentIds() {
+        return appointmentIds;
+    }
+
+    public void setAppointmentIds(List<Long> appointmentIds) {
+        this.appointmentIds = appointmentIds;
+    }
+}
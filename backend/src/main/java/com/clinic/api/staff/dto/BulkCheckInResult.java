@@ -0,0 +1,58 @@
+package com.clinic.api.staff.dto;
+
+public class BulkCheckInResult {
+    private Long appointmentId;
+    private boolean checkedIn;
+    private Long queueNumber;
+    private Long clinicId;
+    private String status; // queue status when checked in
+    private String error;  // reason when not checked in
+
+    public Long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public void setAppointmentId(Long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    public boolean isCheckedIn() {
+        return checkedIn;
+    }
+
+    public void setCheckedIn(boolean checkedIn) {
+        this.checkedIn = checkedIn;
+    }
+
+    public Long getQueueNumber() {
+        return queueNumber;
+    }
+
+    public void setQueueNumber(Long queueNumber) {
+        this.queueNumber = queueNumber;
+    }
+
+    public Long getClinicId() {
+        return clinicId;
+    }
+
+    public void setClinicId(Long clinicId) {
+        this.clinicId = clinicId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -33,6 +33,8 @@ public class AdminService {
     private final PasswordEncoder passwordEncoder;
     private final ReportService reportService;
     private final BackupService backupService;
+    private final QueueRegistry queueRegistry;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
 
     public AdminService(ClinicRepository clinicRepository,
                         ScheduleRepository scheduleRepository,
@@ -44,7 +46,9 @@ public class AdminService {
                         AdminProfileRepository adminProfileRepository,
                         PasswordEncoder passwordEncoder,
                         ReportService reportService,
-                        BackupService backupService) {
+                        BackupService backupService,
+                        QueueRegistry queueRegistry,
+                        SlotAvailabilityIndex slotAvailabilityIndex) {
         this.clinicRepository = clinicRepository;
         this.scheduleRepository = scheduleRepository;
         this.userAccountRepository = userAccountRepository;
@@ -56,6 +60,8 @@ public class AdminService {
         this.passwordEncoder = passwordEncoder;
         this.reportService = reportService;
         this.backupService = backupService;
+        this.queueRegistry = queueRegistry;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
     }
 
     @Transactional
@@ -136,7 +142,9 @@ public class AdminService {
             if (StringUtils.hasText(request.getSpecialty())) {
                 doctorProfile.setSpecialty(request.getSpecialty());
             }
-            doctorProfileRepository.save(doctorProfile);
+            doctorProfile = doctorProfileRepository.save(doctorProfile);
+            // the doctor may have moved to another clinic with other hours
+            slotAvailabilityIndex.evictDoctor(doctorProfile.getId());
         }
 
         userAccountRepository.save(account);
@@ -260,6 +268,7 @@ public class AdminService {
             schedule.setSlotIntervalMinutes(req.getSlotIntervalMinutes());
         }
         scheduleRepository.save(schedule);
+        slotAvailabilityIndex.evictDoctor(doctorId);
     }
 
     @Transactional
@@ -271,6 +280,7 @@ public class AdminService {
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Clinic not found"));
         clinic.setDefaultSlotIntervalMinutes(minutes);
         clinicRepository.save(clinic);
+        slotAvailabilityIndex.evictClinic(clinicId);
     }
 
     @Transactional
@@ -285,6 +295,7 @@ public class AdminService {
         clinic.setOpenTime(open);
         clinic.setCloseTime(close);
         clinicRepository.save(clinic);
+        slotAvailabilityIndex.evictClinic(clinicId);
     }
 
     public BackupMetadata backup() {
@@ -297,6 +308,8 @@ public class AdminService {
 
     public void restore(String backupId) {
         backupService.restoreSnapshot(backupId);
+        // resident queues were built from the rows that were just replaced
+        queueRegistry.clear();
     }
 
     public SystemStatsResponse getSystemStats() {
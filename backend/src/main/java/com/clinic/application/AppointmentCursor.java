@@ -0,0 +1,39 @@
+package com.clinic.application;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an appointment listing ordered by (date_time, id): the next page starts after it.
+ * Clients see it as an opaque string.
+ */
+record AppointmentCursor(LocalDateTime dateTime, long id) {
+
+    /**
+     * A position before every appointment at or after {@code from}.
+     */
+    static AppointmentCursor startingAt(LocalDateTime from) {
+        return new AppointmentCursor(from, 0);
+    }
+
+    static AppointmentCursor parse(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            return new AppointmentCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((dateTime + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
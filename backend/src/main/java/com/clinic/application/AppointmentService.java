@@ -3,13 +3,15 @@ package com.clinic.application;
 import com.clinic.api.patients.dto.AppointmentRequest;
 import com.clinic.api.patients.dto.AppointmentResponse;
 import com.clinic.application.dto.AppointmentDetails;
+import com.clinic.application.dto.CursorPage;
 import org.springframework.http.HttpStatus;
 import com.clinic.domain.entity.Appointment;
 import com.clinic.domain.enums.AppointmentStatus;
 import com.clinic.infrastructure.persistence.AppointmentRepository;
-import com.clinic.infrastructure.persistence.DoctorProfileRepository;
-import com.clinic.infrastructure.persistence.PatientProfileRepository;
 import com.clinic.infrastructure.persistence.SpecialistRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,33 +26,42 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import java.time.format.DateTimeFormatter;
 
 @Service
 public class AppointmentService {
     private final AppointmentRepository appointmentRepository;
     private final SpecialistRepository specialistRepository;
-    private final PatientProfileRepository patientProfileRepository;
-    private final DoctorProfileRepository doctorProfileRepository;
+    private final NameResolver nameResolver;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
     private final NotificationService notificationService;
     private final JdbcTemplate jdbcTemplate;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     // sentinel clinic id used for "specialist / external - no clinic"
     private static final Long SPECIALIST_ONLY_CLINIC_ID = 99999L;
+    // bounds for open-ended listings; DATETIME cannot hold LocalDateTime.MIN/MAX
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 1, 1, 0, 0);
+    private static final String ACTIVE_SLOT_CONSTRAINT = "uq_appointment_active_doctor_slot";
 
     public AppointmentService(AppointmentRepository appointmentRepository,
                               SpecialistRepository specialistRepository,
                               NotificationService notificationService,
                               JdbcTemplate jdbcTemplate,
-                              PatientProfileRepository patientProfileRepository,
-                              DoctorProfileRepository doctorProfileRepository) {
+                              NameResolver nameResolver,
+                              SlotAvailabilityIndex slotAvailabilityIndex,
+                              @Value("${app.appointments.page-size:100}") int defaultPageSize,
+                              @Value("${app.appointments.max-page-size:500}") int maxPageSize) {
         this.appointmentRepository = appointmentRepository;
         this.specialistRepository = specialistRepository;
-        this.patientProfileRepository = patientProfileRepository;
-        this.doctorProfileRepository = doctorProfileRepository;
+        this.nameResolver = nameResolver;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
         this.notificationService = notificationService;
         this.jdbcTemplate = jdbcTemplate;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     private AppointmentDetails fetchAppointmentDetails(Long appointmentId) {
@@ -102,7 +113,9 @@ public class AppointmentService {
             throw new IllegalArgumentException("Cannot book appointments in the past");
         }
 
-        ensureDoctorSlotAvailable(req.getDoctorId(), appointmentTime, null);
+        if (req.getDoctorId() != null) {
+            slotAvailabilityIndex.claim(req.getDoctorId(), appointmentTime);
+        }
 
         Appointment a = new Appointment();
         a.setPatientId(patientId);
@@ -118,7 +131,7 @@ public class AppointmentService {
         a.setDateTime(appointmentTime);
         a.setStatus(AppointmentStatus.SCHEDULED);
         // persist
-        Appointment saved = appointmentRepository.save(a);
+        Appointment saved = saveHoldingSlot(a);
 
         // fetch human-friendly names and queue number and send email (non-fatal)
         try {
@@ -167,14 +180,14 @@ public class AppointmentService {
         }
     
         Long updatedDoctorId = req.getDoctorId() != null ? req.getDoctorId() : a.getDoctorId();
-        ensureDoctorSlotAvailable(updatedDoctorId, newDateTime, a.getId());
+        moveSlot(a, updatedDoctorId, newDateTime);
 
         a.setClinicId(req.getClinicId());
         a.setDoctorId(updatedDoctorId);
         a.setDateTime(newDateTime);
         a.setStatus(AppointmentStatus.SCHEDULED);
     
-        Appointment updated = appointmentRepository.save(a);
+        Appointment updated = saveHoldingSlot(a);
         return toResponse(updated);
     }
     
@@ -189,14 +202,14 @@ public class AppointmentService {
         LocalDateTime newDateTime = parseToLocalDateTime(req.getDateTime());
         Long updatedDoctorId = req.getDoctorId() != null ? req.getDoctorId() : a.getDoctorId();
 
-        ensureDoctorSlotAvailable(updatedDoctorId, newDateTime, a.getId());
+        moveSlot(a, updatedDoctorId, newDateTime);
 
         a.setClinicId(req.getClinicId());
         a.setDoctorId(updatedDoctorId);
         a.setDateTime(newDateTime);
         a.setStatus(AppointmentStatus.SCHEDULED);
     
-        Appointment updated = appointmentRepository.save(a);
+        Appointment updated = saveHoldingSlot(a);
         return toResponse(updated);
     }
     
@@ -213,6 +226,9 @@ public class AppointmentService {
             throw new IllegalArgumentException("Appointment not found");
         }
         Appointment appointment = opt.get();
+        if (appointment.getStatus() != AppointmentStatus.CANCELLED) {
+            slotAvailabilityIndex.release(appointment.getDoctorId(), appointment.getDateTime());
+        }
         appointment.setStatus(AppointmentStatus.CANCELLED);
         appointmentRepository.save(appointment);
     }
@@ -235,140 +251,129 @@ public class AppointmentService {
         }
         
         Appointment appointment = opt.get();
+        // cancelling frees the doctor's slot; reviving a cancelled booking takes it again
+        if (newStatus == AppointmentStatus.CANCELLED && appointment.getStatus() != AppointmentStatus.CANCELLED) {
+            slotAvailabilityIndex.release(appointment.getDoctorId(), appointment.getDateTime());
+        } else if (newStatus != AppointmentStatus.CANCELLED && appointment.getStatus() == AppointmentStatus.CANCELLED) {
+            slotAvailabilityIndex.claim(appointment.getDoctorId(), appointment.getDateTime());
+        }
         appointment.setStatus(newStatus);
-        Appointment updated = appointmentRepository.save(appointment);
+        Appointment updated = saveHoldingSlot(appointment);
         return toResponse(updated);
     }
 
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getDoctorAppointments(Long doctorId, LocalDate date) {
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = start.plusDays(1);
-        return appointmentRepository.findAll().stream()
-                .filter(a -> a.getDoctorId() != null && a.getDoctorId().equals(doctorId))
-                .filter(a -> {
-                    LocalDateTime dt = a.getDateTime();
-                    return dt != null && (!dt.isBefore(start) && dt.isBefore(end));
-                })
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<AppointmentResponse> getDoctorAppointments(Long doctorId, LocalDate date, String cursor, Integer limit) {
+        return page((after, to, max) -> appointmentRepository.findDoctorPage(doctorId, after.dateTime(), after.id(), to, max),
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), cursor, limit);
     }
 
+    /**
+     * Appointments for a clinic on the given date, or all of them when {@code date} is null.
+     */
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getClinicAppointments(Long clinicId, LocalDate date) {
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = start.plusDays(1);
-        return appointmentRepository.findAll().stream()
-                .filter(a -> a.getClinicId() != null && a.getClinicId().equals(clinicId))
-                .filter(a -> {
-                    LocalDateTime dt = a.getDateTime();
-                    return dt != null && (!dt.isBefore(start) && dt.isBefore(end));
-                })
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<AppointmentResponse> getClinicAppointments(Long clinicId, LocalDate date, String cursor, Integer limit) {
+        LocalDateTime start = date != null ? date.atStartOfDay() : EARLIEST;
+        LocalDateTime end = date != null ? date.plusDays(1).atStartOfDay() : LATEST;
+        return page((after, to, max) -> appointmentRepository.findClinicPage(clinicId, after.dateTime(), after.id(), to, max),
+                start, end, cursor, limit);
     }
 
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getUpcomingClinicAppointments(Long clinicId) {
-        LocalDateTime now = LocalDateTime.now();
-        return appointmentRepository.findAll().stream()
-                .filter(a -> a.getClinicId() != null && a.getClinicId().equals(clinicId))
-                .filter(a -> {
-                    LocalDateTime dt = a.getDateTime();
-                    return dt != null && dt.isAfter(now);
-                })
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<AppointmentResponse> getUpcomingClinicAppointments(Long clinicId, String cursor, Integer limit) {
+        return page((after, to, max) -> appointmentRepository.findClinicPage(clinicId, after.dateTime(), after.id(), to, max),
+                LocalDateTime.now(), LATEST, cursor, limit);
     }
 
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> listForSpecialist(Long specialistId, LocalDate date) {
-        LocalDateTime start = date.atStartOfDay();
-        LocalDateTime end = start.plusDays(1);
-        return appointmentRepository.findAll().stream()
-                .filter(a -> a.getSpecialistId() != null && a.getSpecialistId().equals(specialistId))
-                .filter(a -> {
-                    LocalDateTime dt = a.getDateTime();
-                    return dt != null && (!dt.isBefore(start) && dt.isBefore(end));
-                })
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<AppointmentResponse> listForSpecialist(Long specialistId, LocalDate date, String cursor, Integer limit) {
+        return page((after, to, max) -> appointmentRepository.findSpecialistPage(specialistId, after.dateTime(), after.id(), to, max),
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), cursor, limit);
     }
 
+    /**
+     * A specialist's appointments from now on ("upcoming"), before now ("past") or all of them,
+     * one keyset page at a time like the dated listing.
+     */
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> listForSpecialist(Long specialistId, String when) {
+    public CursorPage<AppointmentResponse> listForSpecialist(Long specialistId, String when, String cursor, Integer limit) {
         LocalDateTime now = LocalDateTime.now();
-        List<Appointment> appts = appointmentRepository.findBySpecialistId(specialistId);
-        if ("upcoming".equalsIgnoreCase(when)) {
-            return appts.stream()
-                    .filter(a -> a.getDateTime() != null && a.getDateTime().isAfter(now))
-                    .map(this::toResponse)
-                    .collect(Collectors.toList());
-        } else if ("past".equalsIgnoreCase(when)) {
-            return appts.stream()
-                    .filter(a -> a.getDateTime() != null && a.getDateTime().isBefore(now))
-                    .map(this::toResponse)
-                    .collect(Collectors.toList());
-        } else {
-            return appts.stream().map(this::toResponse).collect(Collectors.toList());
-        }
+        LocalDateTime start = "upcoming".equalsIgnoreCase(when) ? now : EARLIEST;
+        LocalDateTime end = "past".equalsIgnoreCase(when) ? now : LATEST;
+        return page((after, to, max) -> appointmentRepository.findSpecialistPage(specialistId, after.dateTime(), after.id(), to, max),
+                start, end, cursor, limit);
     }
 
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getPatientAppointments(Long patientId, LocalDate startDate, LocalDate endDate) {
-        LocalDateTime start = startDate != null ? startDate.atStartOfDay() : LocalDateTime.MIN;
-        LocalDateTime end = endDate != null ? endDate.plusDays(1).atStartOfDay() : LocalDateTime.MAX;
-        return appointmentRepository.findAll().stream()
-                .filter(a -> a.getPatientId() != null && a.getPatientId().equals(patientId))
-                .filter(a -> {
-                    LocalDateTime dt = a.getDateTime();
-                    return dt != null && (!dt.isBefore(start) && dt.isBefore(end));
-                })
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    public CursorPage<AppointmentResponse> getPatientAppointments(Long patientId, LocalDate startDate, LocalDate endDate,
+                                                                 String cursor, Integer limit) {
+        LocalDateTime start = startDate != null ? startDate.atStartOfDay() : EARLIEST;
+        LocalDateTime end = endDate != null ? endDate.plusDays(1).atStartOfDay() : LATEST;
+        return page((after, to, max) -> appointmentRepository.findPatientPage(patientId, after.dateTime(), after.id(), to, max),
+                start, end, cursor, limit);
     }
 
     /**
      * Return appointments for a clinic (no date filter).
      */
-    public List<AppointmentResponse> listForClinic(Long clinicId) {
-        return appointmentRepository.findAll().stream()
-                .filter(a -> Objects.equals(a.getClinicId(), clinicId))
-                .sorted((a, b) -> {
-                    LocalDateTime adt = a.getDateTime();
-                    LocalDateTime bdt = b.getDateTime();
-                    if (adt == null && bdt == null)
-                        return 0;
-                    if (adt == null)
-                        return 1;
-                    if (bdt == null)
-                        return -1;
-                    return adt.compareTo(bdt);
-                })
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentResponse> listForClinic(Long clinicId, String cursor, Integer limit) {
+        return getClinicAppointments(clinicId, null, cursor, limit);
     }
 
     /**
      * Return appointments for a clinic on a specific date (YYYY-MM-DD).
      */
-    public List<AppointmentResponse> listForClinicOnDate(Long clinicId, String date) {
+    @Transactional(readOnly = true)
+    public CursorPage<AppointmentResponse> listForClinicOnDate(Long clinicId, String date, String cursor, Integer limit) {
         LocalDate d;
         try {
             d = LocalDate.parse(date);
         } catch (DateTimeParseException ex) {
             throw new IllegalArgumentException("Invalid date format, expected YYYY-MM-DD: " + date, ex);
         }
-        LocalDate finalDate = d;
-        return appointmentRepository.findAll().stream()
-                .filter(a -> Objects.equals(a.getClinicId(), clinicId))
-                .filter(a -> a.getDateTime() != null && a.getDateTime().toLocalDate().equals(finalDate))
-                .sorted((a, b) -> a.getDateTime().compareTo(b.getDateTime()))
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        return getClinicAppointments(clinicId, d, cursor, limit);
+    }
+
+    /**
+     * One page of appointments in [from, to) ordered by time, starting after {@code cursor}.
+     * One more row than the page is fetched to tell whether another page follows.
+     */
+    private CursorPage<AppointmentResponse> page(PageQuery query, LocalDateTime from, LocalDateTime to,
+                                                 String cursor, Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        AppointmentCursor after = cursor != null && !cursor.isBlank()
+                ? AppointmentCursor.parse(cursor)
+                : AppointmentCursor.startingAt(from);
+        if (after.dateTime().isBefore(from)) {
+            after = AppointmentCursor.startingAt(from);
+        }
+        List<Appointment> rows = query.fetch(after, to, Limit.of(size + 1));
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Appointment last = rows.get(size - 1);
+            next = new AppointmentCursor(last.getDateTime(), last.getId()).encode();
+        }
+        return new CursorPage<>(toResponses(rows), next);
+    }
+
+    @FunctionalInterface
+    private interface PageQuery {
+        List<Appointment> fetch(AppointmentCursor after, LocalDateTime to, Limit limit);
     }
 
     private AppointmentResponse toResponse(Appointment a) {
+        return toResponses(List.of(a)).get(0);
+    }
+
+    // names for the whole batch come from one query per profile table
+    private List<AppointmentResponse> toResponses(List<Appointment> appointments) {
+        NameResolver.Names names = nameResolver.resolve(appointments, Appointment::getPatientId, Appointment::getDoctorId);
+        return appointments.stream().map(a -> toResponse(a, names)).toList();
+    }
+
+    private AppointmentResponse toResponse(Appointment a, NameResolver.Names names) {
         AppointmentResponse r = new AppointmentResponse();
         r.setId(a.getId());
         Long clinicId = a.getClinicId();
@@ -377,19 +382,9 @@ public class AppointmentService {
         r.setDoctorId(a.getDoctorId());
         r.setPatientId(a.getPatientId());
         r.setDateTime(a.getDateTime());
-        
-        // Fetch and set patient name
-        if (a.getPatientId() != null) {
-            patientProfileRepository.findById(a.getPatientId())
-                .ifPresent(patient -> r.setPatientName(patient.getFullName()));
-        }
-        
-        // Fetch and set doctor name
-        if (a.getDoctorId() != null) {
-            doctorProfileRepository.findById(a.getDoctorId())
-                .ifPresent(doctor -> r.setDoctorName(doctor.getFullName()));
-        }
-        
+        r.setPatientName(names.patient(a.getPatientId()));
+        r.setDoctorName(names.doctor(a.getDoctorId()));
+
         try {
             Object status = a.getStatus();
             r.setStatus(status != null ? status.toString() : null);
@@ -419,17 +414,41 @@ public class AppointmentService {
         }
     }
 
-    private void ensureDoctorSlotAvailable(Long doctorId, LocalDateTime dateTime, Long appointmentIdToExclude) {
-        if (doctorId == null || dateTime == null) {
-            return;
+    /**
+     * Write a booking that holds its doctor's slot. The database's unique key on active
+     * (doctor, time) pairs decides between nodes: a conflict means this node's slot map missed
+     * a booking made elsewhere, so the day is dropped and reloaded on the next request.
+     */
+    private Appointment saveHoldingSlot(Appointment appointment) {
+        try {
+            return appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException ex) {
+            if (!isActiveSlotConflict(ex)) {
+                throw ex;
+            }
+            slotAvailabilityIndex.evictDay(appointment.getDoctorId(), appointment.getDateTime().toLocalDate());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Doctor already booked for this time slot", ex);
         }
+    }
 
-        boolean conflict = appointmentIdToExclude == null
-                ? appointmentRepository.existsByDoctorIdAndDateTime(doctorId, dateTime)
-                : appointmentRepository.existsByDoctorIdAndDateTimeAndIdNot(doctorId, dateTime, appointmentIdToExclude);
+    // the driver reports the violated key by name; V17's unique key over active (doctor, time) pairs
+    private static boolean isActiveSlotConflict(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null && message.contains(ACTIVE_SLOT_CONSTRAINT);
+    }
 
-        if (conflict) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Doctor already booked for this time slot");
+    // take the new doctor and time before giving up the old one; unchanged bookings keep their slot
+    private void moveSlot(Appointment appointment, Long doctorId, LocalDateTime dateTime) {
+        boolean holdsSlot = appointment.getStatus() != AppointmentStatus.CANCELLED;
+        if (holdsSlot && Objects.equals(appointment.getDoctorId(), doctorId)
+                && Objects.equals(appointment.getDateTime(), dateTime)) {
+            return;
+        }
+        if (doctorId != null) {
+            slotAvailabilityIndex.claim(doctorId, dateTime);
+        }
+        if (holdsSlot) {
+            slotAvailabilityIndex.release(appointment.getDoctorId(), appointment.getDateTime());
         }
     }
 }
@@ -3,14 +3,11 @@ package com.clinic.application;
 import com.clinic.api.admin.dto.DoctorAdminResponse;
 import com.clinic.api.doctors.dto.AppointmentResponse;
 import com.clinic.api.doctors.dto.ScheduleResponse;
-import com.clinic.domain.entity.Appointment;
-import com.clinic.domain.entity.Clinic;
+import com.clinic.application.dto.CursorPage;
 import com.clinic.domain.entity.DoctorProfile;
 import com.clinic.domain.entity.Schedule;
-import com.clinic.infrastructure.persistence.AppointmentRepository;
-import com.clinic.infrastructure.persistence.ClinicRepository;
+import com.clinic.domain.schedule.SlotAvailability;
 import com.clinic.infrastructure.persistence.DoctorProfileRepository;
-import com.clinic.infrastructure.persistence.PatientProfileRepository;
 import com.clinic.infrastructure.persistence.ScheduleRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -18,9 +15,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -28,59 +22,25 @@ import java.util.stream.Collectors;
 public class DoctorService {
     private final ScheduleRepository scheduleRepository;
     private final DoctorProfileRepository doctorProfileRepository;
-    private final ClinicRepository clinicRepository;
     private final AppointmentService appointmentService;
-    private final AppointmentRepository appointmentRepository;
-    private final PatientProfileRepository patientProfileRepository;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
 
     public DoctorService(ScheduleRepository scheduleRepository,
                          DoctorProfileRepository doctorProfileRepository,
-                         ClinicRepository clinicRepository,
                          AppointmentService appointmentService,
-                         AppointmentRepository appointmentRepository,
-                         PatientProfileRepository patientProfileRepository) {
+                         SlotAvailabilityIndex slotAvailabilityIndex) {
         this.scheduleRepository = scheduleRepository;
         this.doctorProfileRepository = doctorProfileRepository;
-        this.clinicRepository = clinicRepository;
         this.appointmentService = appointmentService;
-        this.appointmentRepository = appointmentRepository;
-        this.patientProfileRepository = patientProfileRepository;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
     }
 
-    @Transactional(readOnly = true)
     public ScheduleResponse getSchedule(Long doctorProfileId) {
-        DoctorProfile doctor = doctorProfileRepository.findById(doctorProfileId)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Doctor not found"));
-        Schedule schedule = scheduleRepository.findByDoctorId(doctorProfileId).orElse(null);
-        Clinic clinic = doctor.getClinicId() != null
-            ? clinicRepository.findById(doctor.getClinicId()).orElse(null)
-            : null;
-
-        int interval = schedule != null ? schedule.getSlotIntervalMinutes()
-            : clinic != null ? clinic.getDefaultSlotIntervalMinutes() : 15;
-        LocalTime open = clinic != null && clinic.getOpenTime() != null ? clinic.getOpenTime() : LocalTime.of(9, 0);
-        LocalTime close = clinic != null && clinic.getCloseTime() != null ? clinic.getCloseTime() : LocalTime.of(17, 0);
-
-        LocalDate targetDay = LocalDate.now();
-        List<LocalDateTime> occupiedSlots = appointmentRepository
-            .findByDoctorIdAndDateTimeBetween(doctorProfileId, targetDay.atStartOfDay(), targetDay.plusDays(1).atStartOfDay())
-            .stream()
-            .map(Appointment::getDateTime)
-            .collect(Collectors.toList());
-
-        List<LocalDateTime> availableSlots = new ArrayList<>();
-        LocalDateTime slot = targetDay.atTime(open);
-        while (slot.isBefore(targetDay.atTime(close))) {
-            if (!occupiedSlots.contains(slot)) {
-                availableSlots.add(slot);
-            }
-            slot = slot.plusMinutes(interval);
-        }
-
+        SlotAvailability today = slotAvailabilityIndex.get(doctorProfileId, LocalDate.now());
         ScheduleResponse response = new ScheduleResponse();
         response.setDoctorId(doctorProfileId);
-        response.setSlotIntervalMinutes(interval);
-        response.setAvailableSlots(availableSlots);
+        response.setSlotIntervalMinutes(today.getIntervalMinutes());
+        response.setAvailableSlots(today.freeSlots());
         return response;
     }
 
@@ -98,12 +58,13 @@ public class DoctorService {
             schedule.setSlotIntervalMinutes(scheduleRequest.getSlotIntervalMinutes());
             return schedule;
         }));
+        slotAvailabilityIndex.evictDoctor(doctorProfileId);
     }
 
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getAppointments(Long doctorProfileId, String date) {
+    public CursorPage<AppointmentResponse> getAppointments(Long doctorProfileId, String date, String cursor, Integer limit) {
         LocalDate targetDate = date != null ? LocalDate.parse(date) : LocalDate.now();
-        return appointmentService.getDoctorAppointments(doctorProfileId, targetDate).stream()
+        return appointmentService.getDoctorAppointments(doctorProfileId, targetDate, cursor, limit)
             .map(appt -> {
                 AppointmentResponse response = new AppointmentResponse();
                 response.setId(appt.getId());
@@ -112,12 +73,9 @@ public class DoctorService {
                 response.setClinicId(appt.getClinicId());
                 response.setDateTime(appt.getDateTime());
                 response.setStatus(appt.getStatus());
-                // Fetch and set patient name
-                patientProfileRepository.findById(appt.getPatientId())
-                    .ifPresent(patient -> response.setPatientName(patient.getFullName()));
+                response.setPatientName(appt.getPatientName());
                 return response;
-            })
-            .collect(Collectors.toList());
+            });
     }
 
     @Transactional(readOnly = true)
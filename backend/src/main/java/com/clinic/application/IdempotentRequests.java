@@ -0,0 +1,80 @@
+package com.clinic.application;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of requests carrying an idempotency key for a while, so a retried or
+ * double-submitted request gets the original response instead of running again.
+ *
+ * A duplicate that arrives while the first request is still running waits for its result.
+ * Failed requests are forgotten so they can be retried. Keys are kept on this node only.
+ */
+@Component
+public class IdempotentRequests {
+
+    private final Duration ttl;
+    private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+    private volatile long lastPurge = System.currentTimeMillis();
+
+    public IdempotentRequests(@Value("${app.idempotency.ttl-seconds:600}") long ttlSeconds) {
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> action) {
+        purgeExpired();
+        Outcome fresh = new Outcome(System.currentTimeMillis() + ttl.toMillis());
+        Outcome existing = outcomes.compute(key, (k, current) ->
+                current != null && !current.isExpired() ? current : fresh);
+        if (existing != fresh) {
+            try {
+                return (T) existing.result.join();
+            } catch (CompletionException ex) {
+                throw unwrap(ex);
+            }
+        }
+        try {
+            T result = action.get();
+            fresh.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            outcomes.remove(key, fresh);
+            fresh.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < 60_000) {
+            return;
+        }
+        lastPurge = now;
+        outcomes.values().removeIf(Outcome::isExpired);
+    }
+
+    private static RuntimeException unwrap(CompletionException ex) {
+        return ex.getCause() instanceof RuntimeException cause ? cause : ex;
+    }
+
+    private static final class Outcome {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final long expiresAt;
+
+        private Outcome(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
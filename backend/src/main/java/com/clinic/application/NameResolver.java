@@ -0,0 +1,62 @@
+package com.clinic.application;
+
+import com.clinic.infrastructure.persistence.DoctorProfileRepository;
+import com.clinic.infrastructure.persistence.PatientProfileRepository;
+import com.clinic.infrastructure.persistence.ProfileName;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Patient and doctor names for a batch of rows, with at most one query per profile table.
+ *
+ * Only ids and names are selected, so the profiles' user accounts are never loaded, and a
+ * listing costs the same number of queries whatever its size.
+ */
+@Component
+public class NameResolver {
+
+    private final PatientProfileRepository patientProfileRepository;
+    private final DoctorProfileRepository doctorProfileRepository;
+
+    public NameResolver(PatientProfileRepository patientProfileRepository,
+                        DoctorProfileRepository doctorProfileRepository) {
+        this.patientProfileRepository = patientProfileRepository;
+        this.doctorProfileRepository = doctorProfileRepository;
+    }
+
+    public <T> Names resolve(Collection<T> rows, Function<T, Long> patientId, Function<T, Long> doctorId) {
+        Set<Long> patientIds = ids(rows, patientId);
+        Set<Long> doctorIds = ids(rows, doctorId);
+        return new Names(
+                patientIds.isEmpty() ? Map.of() : byId(patientProfileRepository.findNamesByIdIn(patientIds)),
+                doctorIds.isEmpty() ? Map.of() : byId(doctorProfileRepository.findNamesByIdIn(doctorIds)));
+    }
+
+    private static <T> Set<Long> ids(Collection<T> rows, Function<T, Long> id) {
+        return rows.stream().map(id).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static Map<Long, String> byId(Collection<ProfileName> names) {
+        Map<Long, String> result = new HashMap<>();
+        names.forEach(name -> result.put(name.getId(), name.getFullName()));
+        return result;
+    }
+
+    public record Names(Map<Long, String> patients, Map<Long, String> doctors) {
+
+        public String patient(Long patientId) {
+            return patientId != null ? patients.get(patientId) : null;
+        }
+
+        public String doctor(Long doctorId) {
+            return doctorId != null ? doctors.get(doctorId) : null;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.clinic.application;
+
+import com.clinic.websocket.QueueUpdatePublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Closes each clinic's queue once its closing time has passed.
+ *
+ * Entries still waiting, fast-tracked or called become SKIPPED and their appointments
+ * NO_SHOW, each with one set-based update; the transitions go to the queue event log, the
+ * session is CLOSED and a row is written to {@code queue_day_summaries}. A day with entries
+ * but no session (patients checked in before anyone started the queue) is closed too, with a
+ * session row created for it. Each clinic day is swept in its own transaction. Runs on every node but only the one holding the scheduler
+ * lock does the work; sessions missed while no node was up are swept on the next run.
+ */
+@Component
+public class QueueEndOfDaySweep {
+    private static final Logger log = LoggerFactory.getLogger(QueueEndOfDaySweep.class);
+    private static final String LOCK_NAME = "queue-end-of-day";
+    private static final String ACTOR = "end-of-day";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerLock schedulerLock;
+    private final QueueRegistry queueRegistry;
+    private final QueueUpdatePublisher queueUpdatePublisher;
+    private final long graceMinutes;
+
+    public QueueEndOfDaySweep(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              SchedulerLock schedulerLock,
+                              QueueRegistry queueRegistry,
+                              QueueUpdatePublisher queueUpdatePublisher,
+                              @Value("${app.queue.end-of-day.grace-minutes:30}") long graceMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.schedulerLock = schedulerLock;
+        this.queueRegistry = queueRegistry;
+        this.queueUpdatePublisher = queueUpdatePublisher;
+        this.graceMinutes = graceMinutes;
+    }
+
+    @Scheduled(cron = "${app.queue.end-of-day.cron:0 */5 * * * *}")
+    public void run() {
+        if (!schedulerLock.tryLock(LOCK_NAME, Duration.ofMinutes(10))) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (ClinicDay day : dueSessions(now)) {
+                try {
+                    sweep(day);
+                } catch (RuntimeException ex) {
+                    // leave the session open; the next run tries again
+                    log.error("End-of-day sweep failed for clinicId={} date={}: {}", day.clinicId(), day.date(), ex.getMessage());
+                }
+            }
+        } finally {
+            schedulerLock.unlock(LOCK_NAME);
+        }
+    }
+
+    private List<ClinicDay> dueSessions(LocalDateTime now) {
+        Date today = Date.valueOf(now.toLocalDate());
+        return jdbcTemplate.query("""
+                SELECT s.clinic_id, s.queue_date, c.close_time
+                  FROM queue_sessions s
+                  JOIN clinics c ON c.id = s.clinic_id
+                 WHERE s.state <> 'CLOSED' AND s.queue_date <= ?
+                UNION
+                SELECT DISTINCT q.clinic_id, q.queue_date, c.close_time
+                  FROM queue_entries q
+                  JOIN clinics c ON c.id = q.clinic_id
+                 WHERE q.status IN ('WAITING', 'FAST_TRACKED', 'CALLED') AND q.queue_date <= ?
+                   AND NOT EXISTS (SELECT 1 FROM queue_sessions s WHERE s.clinic_id = q.clinic_id AND s.queue_date = q.queue_date)
+                """, (rs, row) -> new ClinicDay(rs.getLong("clinic_id"), rs.getDate("queue_date").toLocalDate(),
+                        rs.getTime("close_time") != null ? rs.getTime("close_time").toLocalTime() : LocalTime.MAX),
+                today, today).stream()
+                .filter(day -> !day.date().atTime(day.closeTime()).plusMinutes(graceMinutes).isAfter(now))
+                .toList();
+    }
+
+    private void sweep(ClinicDay day) {
+        Integer swept = transactionTemplate.execute(status -> {
+            Date date = Date.valueOf(day.date());
+            // a day nobody started has no session yet; create one so it can be locked and closed
+            jdbcTemplate.update(
+                    "INSERT IGNORE INTO queue_sessions (clinic_id, queue_date, state, version) VALUES (?, ?, 'PAUSED', 0)",
+                    day.clinicId(), date);
+            // the session row lock keeps staff actions and other sweeps out until commit
+            String state = jdbcTemplate.queryForObject(
+                    "SELECT state FROM queue_sessions WHERE clinic_id = ? AND queue_date = ? FOR UPDATE",
+                    String.class, day.clinicId(), date);
+            if ("CLOSED".equals(state)) {
+                return null;
+            }
+
+            jdbcTemplate.update("""
+                    INSERT INTO queue_events (clinic_id, queue_date, queue_entry_id, queue_number, appointment_id,
+                                              patient_id, doctor_id, from_status, to_status, priority_class,
+                                              entry_version, actor, occurred_at)
+                    SELECT clinic_id, queue_date, id, queue_number, appointment_id,
+                           patient_id, doctor_id, status, 'SKIPPED', priority_class,
+                           version + 1, ?, NOW(3)
+                      FROM queue_entries
+                     WHERE clinic_id = ? AND queue_date = ? AND status IN ('WAITING', 'FAST_TRACKED', 'CALLED')
+                     ORDER BY queue_number
+                    """, ACTOR, day.clinicId(), date);
+            jdbcTemplate.update("""
+                    UPDATE appointments a
+                      JOIN queue_entries q ON q.appointment_id = a.id
+                       SET a.status = 'NO_SHOW'
+                     WHERE q.clinic_id = ? AND q.queue_date = ? AND q.status IN ('WAITING', 'FAST_TRACKED', 'CALLED')
+                       AND a.status IN ('SCHEDULED', 'CHECKED_IN', 'IN_PROGRESS')
+                    """, day.clinicId(), date);
+            int skipped = jdbcTemplate.update("""
+                    UPDATE queue_entries
+                       SET status = 'SKIPPED', version = version + 1
+                     WHERE clinic_id = ? AND queue_date = ? AND status IN ('WAITING', 'FAST_TRACKED', 'CALLED')
+                    """, day.clinicId(), date);
+            jdbcTemplate.update("""
+                    UPDATE queue_sessions
+                       SET state = 'CLOSED', version = version + 1
+                     WHERE clinic_id = ? AND queue_date = ?
+                    """, day.clinicId(), date);
+            jdbcTemplate.update("""
+                    INSERT INTO queue_day_summaries (clinic_id, queue_date, total_entries, served, cancelled,
+                                                     skipped, swept_no_shows, closed_at)
+                    SELECT ?, ?, COUNT(*),
+                           COALESCE(SUM(status = 'SERVED'), 0),
+                           COALESCE(SUM(status = 'CANCELLED'), 0),
+                           COALESCE(SUM(status = 'SKIPPED'), 0),
+                           ?, NOW(3)
+                      FROM queue_entries
+                     WHERE clinic_id = ? AND queue_date = ?
+                    """, day.clinicId(), date, skipped, day.clinicId(), date);
+            return skipped;
+        });
+        if (swept == null) {
+            return;
+        }
+
+        // resident queues still hold the old statuses; displays and other nodes reload from here
+        if (day.date().equals(LocalDate.now())) {
+            queueRegistry.reload(day.clinicId(), day.date());
+        } else {
+            queueRegistry.evict(day.clinicId(), day.date());
+        }
+        queueUpdatePublisher.publishSnapshot(day.clinicId());
+        log.info("Closed queue for clinicId={} date={}, {} leftover entries marked as no-shows",
+                day.clinicId(), day.date(), swept);
+    }
+
+    private record ClinicDay(Long clinicId, LocalDate date, LocalTime closeTime) {
+    }
+}
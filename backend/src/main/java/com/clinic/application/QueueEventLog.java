@@ -0,0 +1,178 @@
+package com.clinic.application;
+
+import com.clinic.domain.entity.QueueEntry;
+import com.clinic.domain.entity.QueueSession;
+import com.clinic.domain.enums.QueueStatus;
+import com.clinic.domain.queue.Queue;
+import com.clinic.domain.queue.QueuePriorities;
+import com.clinic.infrastructure.persistence.QueueSessionRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only log of queue entry transitions in {@code queue_events}.
+ *
+ * Events recorded inside a transaction are buffered and written with one batched insert
+ * just before it commits, so a rolled-back transition leaves no trace. Each event carries the
+ * entry's state after the transition, including its priority class and row version, so
+ * {@link #replay} can fold the log back into a {@link Queue}.
+ */
+@Component
+public class QueueEventLog {
+
+    private static final String SYSTEM_ACTOR = "system";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final QueueSessionRepository queueSessionRepository;
+    private final QueuePriorities priorities;
+
+    public QueueEventLog(JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                         QueueSessionRepository queueSessionRepository, QueuePriorities priorities) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.queueSessionRepository = queueSessionRepository;
+        this.priorities = priorities;
+    }
+
+    /**
+     * Record that the (saved) entry moved from {@code from} to its current status; {@code from}
+     * is null for a check-in, and the current status itself for a change that keeps the
+     * status, such as a new priority class.
+     */
+    public void record(QueueEntry entry, QueueStatus from) {
+        QueueEvent event = new QueueEvent(entry, entry.getClinicId(), entry.getQueueDate(), entry.getId(),
+                entry.getQueueNumber(), entry.getAppointmentId(), entry.getPatientId(), entry.getDoctorId(),
+                from, entry.getStatus(), entry.getPriorityClass(), currentActor(), occurredAt(entry, from));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(event));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<QueueEvent> pending = (List<QueueEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<QueueEvent> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // row versions move on flush, so flush before reading them
+                    entityManager.flush();
+                    insert(batch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueueEventLog.this);
+                }
+            });
+            pending = batch;
+        }
+        pending.add(event);
+    }
+
+    /**
+     * Rebuild a clinic's queue for the day from the log alone (the session state still comes
+     * from {@code queue_sessions}). Entries come back with the ids, priority classes,
+     * timestamps and row versions they had after their last event, so they can be saved like
+     * loaded ones. Events logged before V20 have no version and replay as version 0, so saving
+     * such an entry fails the version check rather than overwriting a newer row.
+     */
+    public Queue replay(Long clinicId, LocalDate date) {
+        Map<Integer, QueueEntry> entries = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT queue_entry_id, queue_number, appointment_id, patient_id, doctor_id,
+                       from_status, to_status, priority_class, entry_version, occurred_at
+                  FROM queue_events
+                 WHERE clinic_id = ? AND queue_date = ?
+                 ORDER BY id
+                """, rs -> {
+            QueueEntry entry = entries.computeIfAbsent(rs.getInt("queue_number"), number -> new QueueEntry());
+            entry.setId(rs.getLong("queue_entry_id"));
+            entry.setClinicId(clinicId);
+            entry.setQueueDate(date);
+            entry.setQueueNumber(rs.getInt("queue_number"));
+            entry.setAppointmentId(rs.getObject("appointment_id", Long.class));
+            entry.setPatientId(rs.getObject("patient_id", Long.class));
+            entry.setDoctorId(rs.getObject("doctor_id", Long.class));
+            entry.setPriorityClass(rs.getString("priority_class"));
+            Long version = rs.getObject("entry_version", Long.class);
+            entry.setVersion(version != null ? version : 0L);
+
+            String from = rs.getString("from_status");
+            QueueStatus to = QueueStatus.valueOf(rs.getString("to_status"));
+            LocalDateTime occurredAt = rs.getTimestamp("occurred_at").toLocalDateTime();
+            if (from == null) {
+                entry.setCheckedInAt(occurredAt);
+            } else if (!from.equals(to.name())) {
+                if (to == QueueStatus.CALLED) {
+                    entry.setCalledAt(occurredAt);
+                } else if (to == QueueStatus.SERVED) {
+                    entry.setServedAt(occurredAt);
+                }
+            }
+            entry.setStatus(to);
+        }, clinicId, date);
+
+        QueueSession session = queueSessionRepository.findByClinicIdAndQueueDate(clinicId, date).orElse(null);
+        return Queue.createOrMerge(clinicId, date, session, new ArrayList<>(entries.values()), priorities);
+    }
+
+    private void insert(List<QueueEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO queue_events (clinic_id, queue_date, queue_entry_id, queue_number, appointment_id,
+                                          patient_id, doctor_id, from_status, to_status, priority_class,
+                                          entry_version, actor, occurred_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """, events.stream()
+                .map(e -> new Object[]{e.clinicId(), e.queueDate(), e.entryId(), e.queueNumber(), e.appointmentId(),
+                        e.patientId(), e.doctorId(), e.from() != null ? e.from().name() : null, e.to().name(),
+                        e.priorityClass(), e.entry().getVersion(), e.actor(), Timestamp.valueOf(e.occurredAt())})
+                .toList());
+    }
+
+    // the entry's own timestamp for the transition, so replay restores it exactly
+    private static LocalDateTime occurredAt(QueueEntry entry, QueueStatus from) {
+        LocalDateTime at = null;
+        if (from == null) {
+            at = entry.getCheckedInAt();
+        } else if (from != entry.getStatus() && entry.getStatus() == QueueStatus.CALLED) {
+            at = entry.getCalledAt();
+        } else if (from != entry.getStatus() && entry.getStatus() == QueueStatus.SERVED) {
+            at = entry.getServedAt();
+        }
+        return at != null ? at : LocalDateTime.now();
+    }
+
+    private String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return SYSTEM_ACTOR;
+        }
+        return authentication.getName();
+    }
+
+    // the entry is kept to read its row version when the batch is written
+    private record QueueEvent(QueueEntry entry, Long clinicId, LocalDate queueDate, Long entryId, Integer queueNumber,
+                              Long appointmentId, Long patientId, Long doctorId, QueueStatus from, QueueStatus to,
+                              String priorityClass, String actor, LocalDateTime occurredAt) {
+    }
+}
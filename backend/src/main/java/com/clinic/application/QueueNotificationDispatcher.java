@@ -0,0 +1,72 @@
+package com.clinic.application;
+
+import com.clinic.api.common.dto.NotificationRequest;
+import com.clinic.domain.entity.QueueEntry;
+import com.clinic.domain.enums.NotificationType;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Sends queue notifications to patients off the request thread.
+ *
+ * A notification requested inside a transaction is handed over only once it commits, so a
+ * rolled-back or retried call never notifies anyone, and the staff request does not wait for
+ * the notification row or the email provider. A small pool of workers bounds how many emails
+ * are in flight at once.
+ */
+@Component
+public class QueueNotificationDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(QueueNotificationDispatcher.class);
+
+    private final NotificationService notificationService;
+    private final ExecutorService executor;
+
+    public QueueNotificationDispatcher(NotificationService notificationService,
+                                       @Value("${app.notifications.queue-workers:4}") int workers) {
+        this.notificationService = notificationService;
+        this.executor = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("queue-notify-", 0).factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public void dispatch(QueueEntry entry, NotificationType type, String message) {
+        if (entry == null || entry.getPatientId() == null) {
+            return;
+        }
+        NotificationRequest request = new NotificationRequest();
+        request.setUserId(entry.getPatientId());
+        request.setType(type.name());
+        request.setMessage(message);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            executor.execute(() -> send(request));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                executor.execute(() -> send(request));
+            }
+        });
+    }
+
+    private void send(NotificationRequest request) {
+        try {
+            notificationService.sendNotification(request);
+        } catch (RuntimeException ex) {
+            log.error("Failed to send {} notification to patientId={}: {}",
+                    request.getType(), request.getUserId(), ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.clinic.application;
+
+import com.clinic.infrastructure.persistence.QueueEntryRepository;
+import com.clinic.websocket.QueueUpdateListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out queue numbers per clinic and day from an in-memory counter.
+ *
+ * Each counter is seeded once from the highest number already stored, after which
+ * allocation is a lock-free increment with no database round trip. Numbers taken by a
+ * transaction that later rolls back are not reused, so the sequence may have gaps.
+ * The unique key on (clinic_id, queue_date, queue_number) remains the final guard;
+ * callers that hit it should {@link #reseed} and retry. Counters are also reseeded when
+ * another node reports changes to a clinic, since it may have issued numbers.
+ */
+@Component
+public class QueueNumberAllocator implements QueueUpdateListener {
+
+    private final QueueEntryRepository queueEntryRepository;
+    private final ConcurrentMap<CounterKey, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+    public QueueNumberAllocator(QueueEntryRepository queueEntryRepository) {
+        this.queueEntryRepository = queueEntryRepository;
+    }
+
+    public int next(Long clinicId, LocalDate date) {
+        return counter(clinicId, date).incrementAndGet();
+    }
+
+    /**
+     * Reserve {@code count} consecutive numbers and return the first of them.
+     */
+    public int nextBlock(Long clinicId, LocalDate date, int count) {
+        return counter(clinicId, date).getAndAdd(count) + 1;
+    }
+
+    /**
+     * Forget the counter so the next allocation re-reads the stored maximum.
+     */
+    public void reseed(Long clinicId, LocalDate date) {
+        counters.remove(new CounterKey(clinicId, date));
+    }
+
+    @Override
+    public void queueUpdated(Long clinicId, boolean remote) {
+        if (remote) {
+            reseed(clinicId, LocalDate.now());
+        }
+    }
+
+    private AtomicInteger counter(Long clinicId, LocalDate date) {
+        CounterKey key = new CounterKey(clinicId, date);
+        AtomicInteger counter = counters.get(key);
+        if (counter == null) {
+            counters.keySet().removeIf(existing -> existing.date().isBefore(date));
+            counter = counters.computeIfAbsent(key,
+                    k -> new AtomicInteger(queueEntryRepository.findMaxQueueNumber(k.clinicId(), k.date())));
+        }
+        return counter;
+    }
+
+    private record CounterKey(Long clinicId, LocalDate date) {
+    }
+}
@@ -0,0 +1,261 @@
+package com.clinic.application;
+
+import com.clinic.domain.entity.QueueEntry;
+import com.clinic.domain.entity.QueueSession;
+import com.clinic.domain.queue.Queue;
+import com.clinic.domain.queue.QueuePriorities;
+import com.clinic.infrastructure.persistence.QueueEntryRepository;
+import com.clinic.infrastructure.persistence.QueueSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.clinic.websocket.QueueUpdateListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one resident {@link Queue} per clinic and day.
+ *
+ * A queue is loaded from the database the first time it is needed (including after a
+ * restart) and then served from memory. Queues only ever hold committed state: a transaction
+ * changes and saves copies of entries, and {@link #applyAfterCommit} hands the saved entries
+ * to whichever queue is resident once it commits, loading one if none is. Rolled-back work
+ * never reaches a queue, so nothing has to be undone. A reload keeps the entries the replaced
+ * queue had already taken in at a newer version, in case the read behind it was older.
+ *
+ * Lookups by patient first warm the whole day with one query per table, so that a miss
+ * afterwards really means the patient has no entry and polling never touches the database.
+ * A queue dropped after that is reloaded on its own by the next lookup. A clinic's queue is
+ * reloaded when another node reports changes to it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueueRegistry implements QueueUpdateListener {
+    private static final Logger log = LoggerFactory.getLogger(QueueRegistry.class);
+
+    private final QueueEntryRepository queueEntryRepository;
+    private final QueueSessionRepository queueSessionRepository;
+    private final QueuePriorities priorities;
+    private final ConcurrentMap<QueueKey, Queue> queues = new ConcurrentHashMap<>();
+    // dropped since the day was warmed; reloaded one by one before patient lookups
+    private final Set<QueueKey> evicted = ConcurrentHashMap.newKeySet();
+    private volatile LocalDate warmedFor;
+
+    public QueueRegistry(QueueEntryRepository queueEntryRepository,
+                         QueueSessionRepository queueSessionRepository,
+                         QueuePriorities priorities) {
+        this.queueEntryRepository = queueEntryRepository;
+        this.queueSessionRepository = queueSessionRepository;
+        this.priorities = priorities;
+    }
+
+    public Queue get(Long clinicId, LocalDate date) {
+        QueueKey key = new QueueKey(clinicId, date);
+        Queue queue = queues.get(key);
+        if (queue == null) {
+            // earlier days are never touched again once a new day is loaded
+            queues.keySet().removeIf(existing -> existing.date().isBefore(date));
+            evicted.removeIf(existing -> existing.date().isBefore(date));
+            queue = queues.computeIfAbsent(key, this::load);
+            evicted.remove(key);
+        }
+        return queue;
+    }
+
+    /**
+     * The queue holding the patient's lowest-numbered active entry on the given day.
+     */
+    public Optional<Queue> findByPatient(Long patientId, LocalDate date) {
+        warm(date);
+        for (QueueKey key : evicted) {
+            if (key.date().equals(date)) {
+                get(key.clinicId(), date);
+            }
+        }
+        Queue best = null;
+        int bestNumber = Integer.MAX_VALUE;
+        for (Map.Entry<QueueKey, Queue> candidate : queues.entrySet()) {
+            if (!candidate.getKey().date().equals(date)) {
+                continue;
+            }
+            Optional<QueueEntry> entry = candidate.getValue().findActiveEntryForPatient(patientId);
+            if (entry.isPresent() && entry.get().getQueueNumber() < bestNumber) {
+                best = candidate.getValue();
+                bestNumber = entry.get().getQueueNumber();
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    @Override
+    public void queueUpdated(Long clinicId, boolean remote) {
+        if (!remote) {
+            return;
+        }
+        reload(clinicId, LocalDate.now());
+    }
+
+    /**
+     * Replace the clinic's queue with a fresh load, e.g. after its session was changed
+     * elsewhere. Unlike {@link #evict} a warmed day stays complete for patient lookups.
+     */
+    public void reload(Long clinicId, LocalDate date) {
+        QueueKey key = new QueueKey(clinicId, date);
+        // atomic per key, so a commit applied meanwhile lands on one of the two queues
+        queues.compute(key, (k, previous) -> {
+            Queue fresh = load(k);
+            if (previous != null) {
+                fresh.keepNewer(previous);
+            }
+            return fresh;
+        });
+        evicted.remove(key);
+    }
+
+    /**
+     * Apply the entry, as saved in the current transaction, to the resident queue once the
+     * transaction commits; immediately if there is no transaction.
+     */
+    public void applyAfterCommit(QueueEntry saved) {
+        afterCommit(() -> apply(saved));
+    }
+
+    /**
+     * Run a change, such as a session state change, on the resident queue once the current
+     * transaction commits.
+     */
+    public void applyAfterCommit(Long clinicId, LocalDate date, Consumer<Queue> change) {
+        afterCommit(() -> change.accept(get(clinicId, date)));
+    }
+
+    /**
+     * Release the claim on the entry once the current transaction has finished, committed or not.
+     */
+    public void releaseAfterCompletion(Queue queue, Integer queueNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queue.release(queueNumber);
+            return;
+        }
+        pendingActions().onCompletion.add(() -> queue.release(queueNumber));
+    }
+
+    public void evict(Long clinicId, LocalDate date) {
+        QueueKey key = new QueueKey(clinicId, date);
+        queues.remove(key);
+        evicted.add(key);
+    }
+
+    public void clear() {
+        queues.clear();
+        evicted.clear();
+        warmedFor = null;
+    }
+
+    /**
+     * Load every clinic's queue for the day at once, keeping queues that are already resident.
+     */
+    private synchronized void warm(LocalDate date) {
+        if (date.equals(warmedFor)) {
+            return;
+        }
+        queues.keySet().removeIf(existing -> existing.date().isBefore(date));
+        evicted.clear();
+        Map<Long, QueueSession> sessions = new HashMap<>();
+        queueSessionRepository.findByQueueDate(date)
+                .forEach(session -> sessions.put(session.getClinicId(), session));
+        Map<Long, List<QueueEntry>> entries = queueEntryRepository.findByQueueDate(date).stream()
+                .sorted(Comparator.comparingInt(QueueEntry::getQueueNumber))
+                .collect(Collectors.groupingBy(QueueEntry::getClinicId));
+        // started clinics without patients yet are loaded too, so their state is resident
+        Set<Long> clinicIds = new HashSet<>(sessions.keySet());
+        clinicIds.addAll(entries.keySet());
+        for (Long clinicId : clinicIds) {
+            QueueKey key = new QueueKey(clinicId, date);
+            queues.putIfAbsent(key, Queue.createOrMerge(clinicId, date, sessions.get(clinicId),
+                    entries.getOrDefault(clinicId, List.of()), priorities));
+        }
+        warmedFor = date;
+        log.debug("Warmed queues date={} clinics={}", date, clinicIds.size());
+    }
+
+    private Queue load(QueueKey key) {
+        QueueSession session = queueSessionRepository.findByClinicIdAndQueueDate(key.clinicId(), key.date())
+                .orElse(null);
+        List<QueueEntry> entries = queueEntryRepository
+                .findByClinicIdAndQueueDateOrderByQueueNumberAsc(key.clinicId(), key.date());
+        log.debug("Loaded queue clinicId={} date={} entries={}", key.clinicId(), key.date(), entries.size());
+        return Queue.createOrMerge(key.clinicId(), key.date(), session, entries, priorities);
+    }
+
+    private void apply(QueueEntry saved) {
+        // read when the transaction has committed, so the copy carries the new version
+        QueueKey key = new QueueKey(saved.getClinicId(), saved.getQueueDate());
+        Queue resident = queues.computeIfPresent(key, (k, queue) -> {
+            queue.apply(saved);
+            return queue;
+        });
+        if (resident == null) {
+            // loaded after the commit, so it already holds the entry; applying again is harmless
+            get(key.clinicId(), key.date()).apply(saved);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        pendingActions().onCommit.add(action);
+    }
+
+    private PendingActions pendingActions() {
+        PendingActions actions = (PendingActions) TransactionSynchronizationManager.getResource(this);
+        if (actions == null) {
+            actions = new PendingActions();
+            TransactionSynchronizationManager.bindResource(this, actions);
+            TransactionSynchronizationManager.registerSynchronization(actions);
+        }
+        return actions;
+    }
+
+    // one per transaction; ordered first so queues are current before displays or notifications read them
+    private final class PendingActions implements TransactionSynchronization {
+        private final List<Runnable> onCommit = new ArrayList<>();
+        private final List<Runnable> onCompletion = new ArrayList<>();
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            onCommit.forEach(Runnable::run);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(QueueRegistry.this);
+            onCompletion.forEach(Runnable::run);
+        }
+    }
+
+    private record QueueKey(Long clinicId, LocalDate date) {
+    }
+}
@@ -1,9 +1,9 @@
 package com.clinic.application;
 
-import com.clinic.api.common.dto.NotificationRequest;
 import com.clinic.api.patients.dto.QueueEntryResponse;
 import com.clinic.api.patients.dto.QueueStatusResponse;
 import com.clinic.api.staff.dto.AppointmentResponse;
+import com.clinic.api.staff.dto.BulkCheckInResult;
 import com.clinic.api.staff.dto.ClinicQueueStatusResponse;
 import com.clinic.api.staff.dto.QueueEntrySummaryResponse;
 import com.clinic.domain.entity.Appointment;
@@ -14,22 +14,35 @@ import com.clinic.domain.enums.NotificationType;
 import com.clinic.domain.enums.QueueState;
 import com.clinic.domain.enums.QueueStatus;
 import com.clinic.domain.queue.Queue;
+import com.clinic.domain.queue.QueueChange;
+import com.clinic.domain.queue.QueuePriorities;
 import com.clinic.infrastructure.persistence.AppointmentRepository;
-import com.clinic.infrastructure.persistence.DoctorProfileRepository;
-import com.clinic.infrastructure.persistence.PatientProfileRepository;
 import com.clinic.infrastructure.persistence.QueueEntryRepository;
+import com.clinic.infrastructure.persistence.QueueRosterQuery;
 import com.clinic.infrastructure.persistence.QueueSessionRepository;
-import com.clinic.websocket.WebSocketHandler;
+import com.clinic.websocket.QueueSnapshotSource;
+import com.clinic.websocket.QueueUpdatePublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -37,34 +50,67 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
-public class QueueService {
+public class QueueService implements QueueSnapshotSource {
+    private static final Logger log = LoggerFactory.getLogger(QueueService.class);
+    private static final String UPCOMING_MESSAGE = "You are 3 patients away. Please proceed closer to the consultation room.%n%nWe look forward to serving you.%nWarm regards,%nSingHealth Clinic Team";
+    private static final String CALLED_MESSAGE = "It’s your turn. Kindly proceed to the consultation room.%n%nWe look forward to serving you.%nWarm regards,%nSingHealth Clinic Team";
 
     private final AppointmentRepository appointmentRepository;
     private final QueueEntryRepository queueEntryRepository;
     private final QueueSessionRepository queueSessionRepository;
-    private final NotificationService notificationService;
+    private final QueueNotificationDispatcher notificationDispatcher;
     private final MedicalRecordService medicalRecordService;
-    private final PatientProfileRepository patientProfileRepository;
-    private final DoctorProfileRepository doctorProfileRepository;
-    private final WebSocketHandler webSocketHandler;
+    private final NameResolver nameResolver;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
+    private final QueueUpdatePublisher queueUpdatePublisher;
+    private final QueueRegistry queueRegistry;
+    private final QueueNumberAllocator queueNumberAllocator;
+    private final QueueEventLog queueEventLog;
+    private final WaitTimeEstimator waitTimeEstimator;
+    private final IdempotentRequests idempotentRequests;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final QueueRosterQuery queueRosterQuery;
+    private final QueuePriorities priorities;
+    private final int callNextAttempts;
 
     public QueueService(
             QueueEntryRepository queueEntryRepository,
             QueueSessionRepository queueSessionRepository,
             AppointmentRepository appointmentRepository,
-            NotificationService notificationService,
+            QueueNotificationDispatcher notificationDispatcher,
             MedicalRecordService medicalRecordService,
-            PatientProfileRepository patientProfileRepository,
-            DoctorProfileRepository doctorProfileRepository,
-            WebSocketHandler webSocketHandler) {
+            NameResolver nameResolver,
+            SlotAvailabilityIndex slotAvailabilityIndex,
+            QueueUpdatePublisher queueUpdatePublisher,
+            QueueRegistry queueRegistry,
+            QueueNumberAllocator queueNumberAllocator,
+            QueueEventLog queueEventLog,
+            WaitTimeEstimator waitTimeEstimator,
+            IdempotentRequests idempotentRequests,
+            TransactionTemplate transactionTemplate,
+            JdbcTemplate jdbcTemplate,
+            QueueRosterQuery queueRosterQuery,
+            QueuePriorities priorities,
+            @Value("${app.queue.call-next-attempts:3}") int callNextAttempts) {
         this.appointmentRepository = appointmentRepository;
         this.queueEntryRepository = queueEntryRepository;
         this.queueSessionRepository = queueSessionRepository;
-        this.notificationService = notificationService;
+        this.notificationDispatcher = notificationDispatcher;
         this.medicalRecordService = medicalRecordService;
-        this.patientProfileRepository = patientProfileRepository;
-        this.doctorProfileRepository = doctorProfileRepository;
-        this.webSocketHandler = webSocketHandler;
+        this.nameResolver = nameResolver;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
+        this.queueUpdatePublisher = queueUpdatePublisher;
+        this.queueRegistry = queueRegistry;
+        this.queueNumberAllocator = queueNumberAllocator;
+        this.queueEventLog = queueEventLog;
+        this.waitTimeEstimator = waitTimeEstimator;
+        this.idempotentRequests = idempotentRequests;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.queueRosterQuery = queueRosterQuery;
+        this.priorities = priorities;
+        this.callNextAttempts = callNextAttempts;
     }
 
     @Transactional
@@ -80,22 +126,39 @@ public class QueueService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot check in cancelled or no-show appointments");
         }
 
-        QueueSession session = queueSessionRepository.findByClinicIdAndQueueDate(appointment.getClinicId(), today)
-                .orElse(null);
-        if (session != null && session.getState() == QueueState.PAUSED) {
+        // session state is resident with the queue, so this costs no query
+        Queue queue = queueRegistry.get(appointment.getClinicId(), today);
+        if (queue.getState() == QueueState.PAUSED) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue is currently paused");
         }
+        if (queue.getState() == QueueState.CLOSED) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue is closed for the day");
+        }
 
         Optional<QueueEntry> existingEntry = queueEntryRepository.findByAppointmentId(appointmentId);
         QueueEntry entry = existingEntry.orElseGet(() -> {
-            int nextNumber = queueEntryRepository.findMaxQueueNumber(appointment.getClinicId(), today) + 1;
+            int nextNumber = queueNumberAllocator.next(appointment.getClinicId(), today);
             QueueEntry created = new QueueEntry();
             created.setClinicId(appointment.getClinicId());
             created.setQueueDate(today);
             created.setQueueNumber(nextNumber);
             created.setStatus(QueueStatus.WAITING);
             created.setAppointmentId(appointment.getId());
-            return queueEntryRepository.save(created);
+            created.setPatientId(appointment.getPatientId());
+            created.setDoctorId(appointment.getDoctorId());
+            created.setCheckedInAt(LocalDateTime.now());
+            QueueEntry saved;
+            try {
+                saved = queueEntryRepository.save(created);
+            } catch (DataIntegrityViolationException ex) {
+                // another node issued this number; resync the counter and let the kiosk retry
+                queueNumberAllocator.reseed(appointment.getClinicId(), today);
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Queue number already issued, please retry", ex);
+            }
+            queueRegistry.applyAfterCommit(saved);
+            queueEventLog.record(saved, null);
+            queueUpdatePublisher.publish(saved.getClinicId(), List.of(addedChange(saved, appointment)));
+            return saved;
         });
 
         appointment.setStatus(AppointmentStatus.CHECKED_IN);
@@ -104,92 +167,138 @@ public class QueueService {
         return toPatientResponse(entry, appointment);
     }
 
-    @Transactional(readOnly = true)
-    public QueueStatusResponse getStatusForPatient(Long patientId) {
+    /**
+     * Checks in many appointments at once, e.g. the pre-booked patients at opening time.
+     *
+     * Appointments and existing entries are read with one query each, each clinic takes one
+     * block of queue numbers, new entries are inserted as one JDBC batch and the appointments
+     * are marked with one update. Appointments that cannot be checked in are reported in their
+     * result rather than failing the batch. Displays get one update per clinic.
+     */
+    @Transactional
+    public List<BulkCheckInResult> checkInAll(List<Long> appointmentIds) {
         LocalDate today = LocalDate.now();
-        List<Appointment> appointments = appointmentRepository.findByPatientIdAndDateTimeBetween(
-                patientId, today.atStartOfDay(), today.plusDays(1).atStartOfDay()
-        );
-        if (appointments.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No appointment today for patient");
-        }
-
-        // Only consider appointments that are checked-in — queue status tied to checked-in appointment
-        List<Appointment> checkedIn = appointments.stream()
-                .filter(a -> a.getStatus() == AppointmentStatus.CHECKED_IN)
-                .collect(Collectors.toList());
-
-        if (checkedIn.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No active checked-in appointment for patient");
-        }
-
-        // Find checked-in appointment with a queue entry, preferring priority queue statuses
-        Appointment appointment = null;
-        QueueEntry myEntry = null;
-
-        for (Appointment appt : checkedIn) {
-            Optional<QueueEntry> maybe = queueEntryRepository.findByAppointmentId(appt.getId());
-            if (maybe.isPresent()) {
-                QueueEntry entry = maybe.get();
-                if (myEntry == null) {
-                    appointment = appt;
-                    myEntry = entry;
-                } else {
-                    boolean preferred = entry.getStatus() == QueueStatus.WAITING
-                            || entry.getStatus() == QueueStatus.FAST_TRACKED
-                            || entry.getStatus() == QueueStatus.CALLED;
-                    boolean currentlyPreferred = myEntry.getStatus() == QueueStatus.WAITING
-                            || myEntry.getStatus() == QueueStatus.FAST_TRACKED
-                            || myEntry.getStatus() == QueueStatus.CALLED;
-                    if (preferred && !currentlyPreferred) {
-                        appointment = appt;
-                        myEntry = entry;
-                    } else if (preferred == currentlyPreferred) {
-                        if (entry.getQueueNumber() < myEntry.getQueueNumber()) {
-                            appointment = appt;
-                            myEntry = entry;
-                        }
-                    }
+        List<Long> ids = appointmentIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, Appointment> appointments = appointmentRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Appointment::getId, appointment -> appointment));
+        Map<Long, QueueEntry> existing = queueEntryRepository.findByAppointmentIdIn(ids).stream()
+                .collect(Collectors.toMap(QueueEntry::getAppointmentId, entry -> entry, (first, second) -> first));
+
+        Map<Long, BulkCheckInResult> results = new LinkedHashMap<>();
+        Map<Long, List<Appointment>> toCreate = new LinkedHashMap<>();
+        List<Long> checkedIn = new ArrayList<>();
+        for (Long id : ids) {
+            BulkCheckInResult result = new BulkCheckInResult();
+            result.setAppointmentId(id);
+            results.put(id, result);
+
+            Appointment appointment = appointments.get(id);
+            String error = checkInError(appointment, today);
+            if (error != null) {
+                result.setError(error);
+                continue;
+            }
+            checkedIn.add(id);
+            QueueEntry entry = existing.get(id);
+            if (entry != null) {
+                fillResult(result, entry);
+            } else {
+                toCreate.computeIfAbsent(appointment.getClinicId(), clinicId -> new ArrayList<>()).add(appointment);
+            }
+        }
+
+        if (!toCreate.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<>();
+            toCreate.forEach((clinicId, clinicAppointments) -> {
+                int number = queueNumberAllocator.nextBlock(clinicId, today, clinicAppointments.size());
+                for (Appointment appointment : clinicAppointments) {
+                    rows.add(new Object[]{clinicId, today, number++, QueueStatus.WAITING.name(),
+                            appointment.getId(), appointment.getPatientId(), appointment.getDoctorId(), now});
                 }
+            });
+            try {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO queue_entries (clinic_id, queue_date, queue_number, status, appointment_id,
+                                                   patient_id, doctor_id, checked_in_at, version)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)
+                        """, rows);
+            } catch (DataIntegrityViolationException ex) {
+                toCreate.keySet().forEach(clinicId -> queueNumberAllocator.reseed(clinicId, today));
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Queue numbers already issued, please retry", ex);
             }
+
+            // read the new rows back once for their generated ids
+            List<QueueEntry> created = queueEntryRepository.findByAppointmentIdIn(toCreate.values().stream()
+                    .flatMap(List::stream)
+                    .map(Appointment::getId)
+                    .toList());
+            Map<Long, List<QueueEntry>> createdByClinic = new LinkedHashMap<>();
+            for (QueueEntry entry : created) {
+                queueRegistry.applyAfterCommit(entry);
+                queueEventLog.record(entry, null);
+                fillResult(results.get(entry.getAppointmentId()), entry);
+                createdByClinic.computeIfAbsent(entry.getClinicId(), clinicId -> new ArrayList<>()).add(entry);
+            }
+            createdByClinic.forEach((clinicId, entries) ->
+                    queueUpdatePublisher.publish(clinicId, addedChanges(entries, appointments)));
         }
 
-        if (appointment == null || myEntry == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No active checked-in appointment with a queue entry for patient");
+        if (!checkedIn.isEmpty()) {
+            appointmentRepository.updateStatusForIds(checkedIn, AppointmentStatus.CHECKED_IN);
         }
+        return new ArrayList<>(results.values());
+    }
 
-        List<QueueEntry> entries = queueEntryRepository
-                .findByClinicIdAndQueueDateOrderByQueueNumberAsc(appointment.getClinicId(), today);
+    private String checkInError(Appointment appointment, LocalDate today) {
+        if (appointment == null) {
+            return "Appointment not found";
+        }
+        if (!appointment.getDateTime().toLocalDate().equals(today)) {
+            return "Check-in allowed only on appointment date";
+        }
+        if (appointment.getStatus() == AppointmentStatus.CANCELLED || appointment.getStatus() == AppointmentStatus.NO_SHOW) {
+            return "Cannot check in cancelled or no-show appointments";
+        }
+        QueueState state = queueRegistry.get(appointment.getClinicId(), today).getState();
+        if (state == QueueState.PAUSED) {
+            return "Queue is currently paused";
+        }
+        if (state == QueueState.CLOSED) {
+            return "Queue is closed for the day";
+        }
+        return null;
+    }
+
+    private void fillResult(BulkCheckInResult result, QueueEntry entry) {
+        result.setCheckedIn(true);
+        result.setClinicId(entry.getClinicId());
+        result.setQueueNumber(entry.getQueueNumber().longValue());
+        result.setStatus(entry.getStatus().name());
+    }
 
-        int currentNumber = entries.stream()
-                .filter(entry -> EnumSet.of(QueueStatus.CALLED, QueueStatus.SERVED).contains(entry.getStatus()))
-                .mapToInt(QueueEntry::getQueueNumber)
-                .max()
-                .orElse(0);
+    // not transactional: served from the resident queues and polled by every waiting patient
+    public QueueStatusResponse getStatusForPatient(Long patientId) {
+        Queue queue = queueRegistry.findByPatient(patientId, LocalDate.now())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No active checked-in appointment with a queue entry for patient"));
+        QueueEntry myEntry = queue.findActiveEntryForPatient(patientId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No active checked-in appointment with a queue entry for patient"));
 
         QueueStatusResponse response = new QueueStatusResponse();
-        response.setClinicId(appointment.getClinicId());
+        response.setClinicId(queue.getClinicId());
         response.setPatientId(patientId);
-        response.setCurrentNumber(currentNumber);
-
+        response.setCurrentNumber(queue.currentNumber());
         response.setQueueNumber(myEntry.getQueueNumber().longValue());
         response.setStatus(myEntry.getStatus().name());
-        
-        final QueueEntry finalMyEntry = myEntry;
-        int numbersAway = 0;
-        if (myEntry.getStatus() == QueueStatus.WAITING || 
-            myEntry.getStatus() == QueueStatus.FAST_TRACKED || 
-            myEntry.getStatus() == QueueStatus.CALLED) {
-            numbersAway = (int) entries.stream()
-                    .filter(entry -> EnumSet.of(QueueStatus.WAITING, QueueStatus.FAST_TRACKED, QueueStatus.CALLED)
-                            .contains(entry.getStatus()))
-                    .filter(entry -> entry.getQueueNumber() < finalMyEntry.getQueueNumber())
-                    .count();
-        }
-        response.setNumbersAway(numbersAway);
-
-        queueSessionRepository.findByClinicIdAndQueueDate(appointment.getClinicId(), today)
-                .ifPresent(session -> response.setState(session.getState().name()));
+        // ahead in call order, so priority classes and fast-tracking count, not just lower numbers
+        response.setNumbersAway(queue.countAhead(myEntry.getQueueNumber()));
+        response.setEstimatedWaitMinutes(myEntry.isWaiting()
+                ? waitTimeEstimator.estimateWaitMinutes(queue.getClinicId(), response.getNumbersAway(),
+                        myEntry.getDoctorId(), queue.countAheadForDoctor(myEntry.getQueueNumber()))
+                : 0);
+        if (queue.getState() != null) {
+            response.setState(queue.getState().name());
+        }
         return response;
     }
 
@@ -206,10 +315,14 @@ public class QueueService {
         if (session.getState() == QueueState.ACTIVE) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue session already started");
         }
+        if (session.isClosed()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue is closed for the day");
+        }
         session.start();
         queueSessionRepository.save(session);
+        queueRegistry.applyAfterCommit(clinicId, today, Queue::start);
 
-        publishQueueSnapshot(clinicId);
+        queueUpdatePublisher.publishSnapshot(clinicId);
     }
 
     @Transactional
@@ -219,34 +332,83 @@ public class QueueService {
         if (session.getState() == QueueState.PAUSED) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue session already paused");
         }
+        if (session.isClosed()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue is closed for the day");
+        }
         session.pause();
         queueSessionRepository.save(session);
+        queueRegistry.applyAfterCommit(clinicId, session.getQueueDate(), Queue::pause);
+        queueUpdatePublisher.publishStateChange(clinicId);
     }
 
-    @Transactional
+    /**
+     * Call the next patient once per idempotency key: repeating a request with the same key
+     * returns the original response instead of calling another patient.
+     */
+    public AppointmentResponse callNext(Long clinicId, String idempotencyKey) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return callNext(clinicId);
+        }
+        return idempotentRequests.execute("queue-next:" + clinicId + ":" + idempotencyKey.trim(),
+                () -> callNext(clinicId));
+    }
+
+    /**
+     * Call the next patient, retrying in a fresh transaction (with the queue reloaded) when
+     * another request or node updated the same rows first.
+     */
     public AppointmentResponse callNext(Long clinicId) {
-        LocalDate today = LocalDate.now();
-        QueueSession session = queueSessionRepository.findByClinicIdAndQueueDate(clinicId, today)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue not started"));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> callNextOnce(clinicId));
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= callNextAttempts) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Queue changed concurrently, please retry", ex);
+                }
+                log.debug("callNext conflict for clinicId={} on attempt {}, retrying", clinicId, attempt);
+                // the resident queue missed a commit, most likely from another node
+                queueRegistry.reload(clinicId, LocalDate.now());
+            }
+        }
+    }
 
-        if (session.getState() != QueueState.ACTIVE) {
+    private AppointmentResponse callNextOnce(Long clinicId) {
+        LocalDate today = LocalDate.now();
+        Queue queue = queueRegistry.get(clinicId, today);
+        if (queue.getState() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue not started");
+        }
+        if (queue.getState() == QueueState.CLOSED) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue is closed for the day");
+        }
+        if (queue.getState() != QueueState.ACTIVE) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Queue is paused");
         }
+        QueueEntry nextEntry;
+        QueueEntry upcoming;
+        // the queue's own lock, so nobody else can claim the same patient in between
+        synchronized (queue) {
+            nextEntry = queue.claimNext();
+            if (nextEntry == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No patients in queue");
+            }
+            // two more patients go in before this one
+            upcoming = queue.peekWaiting(2);
+        }
+        queueRegistry.releaseAfterCompletion(queue, nextEntry.getQueueNumber());
 
-        List<QueueEntry> entries = queueEntryRepository.findByClinicIdAndQueueDateOrderByQueueNumberAsc(clinicId, today);
-        Queue queue = Queue.createOrMerge(clinicId, today, session, entries);
+        QueueStatus previousStatus = nextEntry.getStatus();
+        nextEntry.updateStatus(QueueStatus.CALLED);
+        nextEntry = persist(nextEntry, previousStatus);
 
-        QueueEntry nextEntry = queue.callNext();
-        if (nextEntry == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No patients in queue");
-        }
+        // sent after commit, off this thread
+        notificationDispatcher.dispatch(upcoming, NotificationType.REMINDER, UPCOMING_MESSAGE);
+        notificationDispatcher.dispatch(nextEntry, NotificationType.QUEUE_CALLED, CALLED_MESSAGE);
 
-        queueEntryRepository.save(nextEntry);
-        notifyUpcomingPatients(clinicId, today, nextEntry.getQueueNumber());
+        // displays get the change once this transaction commits
+        queueUpdatePublisher.publish(clinicId,
+                List.of(QueueChange.statusChanged(nextEntry.getQueueNumber(), nextEntry.getStatus())));
 
-        // publish websocket snapshot so frontend updates immediately when queue advances
-        publishQueueSnapshot(clinicId);
-        
         return buildQueueAdvanceResponse(nextEntry);
     }
 
@@ -262,11 +424,14 @@ public class QueueService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown queue status: " + status, ex);
         }
 
-        QueueEntry entry = queueEntryRepository.findByClinicIdAndQueueDateAndQueueNumber(
-                clinicId, LocalDate.now(), queueNumber.intValue())
+        Queue queue = queueRegistry.get(clinicId, LocalDate.now());
+        QueueEntry entry = queue.findEntry(queueNumber.intValue())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Queue entry not found"));
+        boolean wasActive = entry.isActive();
+        QueueStatus previousStatus = entry.getStatus();
         entry.updateStatus(newStatus);
-        queueEntryRepository.save(entry);
+        entry = persist(entry, previousStatus);
+        queueUpdatePublisher.publish(clinicId, List.of(changeFor(entry, wasActive)));
 
         if (entry.getAppointmentId() != null) {
             appointmentRepository.findById(entry.getAppointmentId()).ifPresent(appointment -> {
@@ -275,7 +440,12 @@ public class QueueService {
                         appointment.setStatus(AppointmentStatus.COMPLETED);
                         medicalRecordService.createFromAppointmentIfMissing(appointment);
                     }
-                    case CANCELLED -> appointment.setStatus(AppointmentStatus.CANCELLED);
+                    case CANCELLED -> {
+                        if (appointment.getStatus() != AppointmentStatus.CANCELLED) {
+                            slotAvailabilityIndex.release(appointment.getDoctorId(), appointment.getDateTime());
+                        }
+                        appointment.setStatus(AppointmentStatus.CANCELLED);
+                    }
                     case SKIPPED -> appointment.setStatus(AppointmentStatus.NO_SHOW);
                     default -> {
                     }
@@ -287,67 +457,97 @@ public class QueueService {
 
     @Transactional
     public void fastTrack(Long clinicId, Long queueNumber) {
-        QueueEntry entry = queueEntryRepository.findByClinicIdAndQueueDateAndQueueNumber(
-                clinicId, LocalDate.now(), queueNumber.intValue())
+        Queue queue = queueRegistry.get(clinicId, LocalDate.now());
+        QueueEntry entry = queue.findEntry(queueNumber.intValue())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Queue entry not found"));
+        boolean wasActive = entry.isActive();
+        QueueStatus previousStatus = entry.getStatus();
+        // a call that commits first bumps the row version, so this save then fails instead
+        if (!entry.isWaiting() || queue.isClaimed(entry.getQueueNumber())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only waiting entries can be fast-tracked");
+        }
         entry.fastTrack();
-        queueEntryRepository.save(entry);
+        entry = persist(entry, previousStatus);
+        queueUpdatePublisher.publish(clinicId, List.of(changeFor(entry, wasActive)));
+    }
+
+    @Transactional
+    public void changePriority(Long clinicId, Long queueNumber, String priorityClass) {
+        String normalized = priorityClass.trim().toLowerCase();
+        if (!priorities.isKnown(normalized)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown priority class, expected one of " + String.join(", ", priorities.classes()));
+        }
+        Queue queue = queueRegistry.get(clinicId, LocalDate.now());
+        QueueEntry entry = queue.findEntry(queueNumber.intValue())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Queue entry not found"));
+        if (!entry.isWaiting() || queue.isClaimed(entry.getQueueNumber())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only waiting entries can change priority");
+        }
+        entry.setPriorityClass(QueuePriorities.REGULAR.equals(normalized) ? null : normalized);
+        entry = queueEntryRepository.save(entry);
+        queueRegistry.applyAfterCommit(entry);
+        // the status stays, but the call order changes
+        queueEventLog.record(entry, entry.getStatus());
+        queueUpdatePublisher.publish(clinicId, List.of(changeFor(entry, true)));
     }
 
     @Transactional(readOnly = true)
     public ClinicQueueStatusResponse getClinicStatus(Long clinicId) {
-        LocalDate today = LocalDate.now();
-        List<QueueEntry> entries = queueEntryRepository.findByClinicIdAndQueueDateOrderByQueueNumberAsc(clinicId, today);
-        int current = entries.stream()
-                .filter(entry -> EnumSet.of(QueueStatus.CALLED, QueueStatus.SERVED).contains(entry.getStatus()))
-                .mapToInt(QueueEntry::getQueueNumber)
-                .max()
-                .orElse(0);
-        long waiting = entries.stream()
-                .filter(QueueEntry::isWaiting)
-                .count();
+        Queue queue = queueRegistry.get(clinicId, LocalDate.now());
 
         ClinicQueueStatusResponse response = new ClinicQueueStatusResponse();
         response.setClinicId(clinicId);
-        response.setCurrentNumber(current);
-        response.setWaitingCount((int) waiting);
-        queueSessionRepository.findByClinicIdAndQueueDate(clinicId, today)
-                .ifPresent(session -> response.setState(session.getState().name()));
+        response.setCurrentNumber(queue.currentNumber());
+        response.setWaitingCount(queue.waitingCount());
+        if (queue.getState() != null) {
+            response.setState(queue.getState().name());
+        }
         return response;
     }
 
-    @Transactional(readOnly = true)
+    // one joined select; the staff console refreshes this often
     public List<QueueEntrySummaryResponse> listEntries(Long clinicId) {
-        LocalDate today = LocalDate.now();
-        List<QueueEntry> entries = queueEntryRepository.findByClinicIdAndQueueDateOrderByQueueNumberAsc(clinicId, today);
-        Map<Long, Appointment> appointments = appointmentRepository
-                .findAllById(entries.stream()
-                        .map(QueueEntry::getAppointmentId)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toSet()))
-                .stream()
-                .collect(Collectors.toMap(Appointment::getId, appointment -> appointment));
+        return queueRosterQuery.findRoster(clinicId, LocalDate.now());
+    }
 
-        return entries.stream()
-                .map(entry -> {
-                    QueueEntrySummaryResponse response = new QueueEntrySummaryResponse();
-                    response.setQueueNumber(entry.getQueueNumber().longValue());
-                    response.setStatus(entry.getStatus().name());
-                    response.setAppointmentId(entry.getAppointmentId());
-                    if (entry.getAppointmentId() != null) {
-                        Appointment appointment = appointments.get(entry.getAppointmentId());
-                        if (appointment != null) {
-                            response.setPatientId(appointment.getPatientId());
-                            response.setDoctorId(appointment.getDoctorId());
-                            patientProfileRepository.findById(appointment.getPatientId())
-                                .ifPresent(profile -> response.setPatientName(profile.getFullName()));
-                            doctorProfileRepository.findById(appointment.getDoctorId())
-                                .ifPresent(profile -> response.setDoctorName(profile.getFullName()));
-                        }
-                    }
-                    return response;
-                })
-                .collect(Collectors.toList());
+    // the entry is a copy from the queue; the queue takes in the saved state once it commits
+    private QueueEntry persist(QueueEntry entry, QueueStatus previousStatus) {
+        QueueEntry saved = queueEntryRepository.save(entry);
+        queueRegistry.applyAfterCommit(saved);
+        queueEventLog.record(saved, previousStatus);
+        recordTiming(saved, previousStatus);
+        return saved;
+    }
+
+    // the estimator only learns from transitions that commit; retried or rejected calls would skew it
+    private void recordTiming(QueueEntry entry, QueueStatus previousStatus) {
+        Runnable observation;
+        if (entry.getStatus() == previousStatus) {
+            return;
+        } else if (entry.getStatus() == QueueStatus.CALLED) {
+            Long clinicId = entry.getClinicId();
+            LocalDateTime calledAt = entry.getCalledAt();
+            observation = () -> waitTimeEstimator.recordCall(clinicId, calledAt);
+        } else if (entry.getStatus() == QueueStatus.SERVED) {
+            Long clinicId = entry.getClinicId();
+            Long doctorId = entry.getDoctorId();
+            LocalDateTime calledAt = entry.getCalledAt();
+            LocalDateTime servedAt = entry.getServedAt();
+            observation = () -> waitTimeEstimator.recordConsultation(clinicId, doctorId, calledAt, servedAt);
+        } else {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            observation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                observation.run();
+            }
+        });
     }
 
     private QueueEntryResponse toPatientResponse(QueueEntry entry, Appointment appointment) {
@@ -377,112 +577,61 @@ public class QueueService {
         return response;
     }
 
-    private void notifyUpcomingPatients(Long clinicId, LocalDate date, int calledNumber) {
-        queueEntryRepository.findByClinicIdAndQueueDateOrderByQueueNumberAsc(clinicId, date).stream()
-                .filter(QueueEntry::isWaiting)
-                .filter(entry -> entry.getQueueNumber() == calledNumber + 3)
-                .findFirst()
-                .ifPresent(entry -> sendNotification(entry,
-                        NotificationType.REMINDER,
-                        "You are 3 patients away. Please proceed closer to the consultation room.%n%nWe look forward to serving you.%nWarm regards,%nSingHealth Clinic Team"));
-
-        queueEntryRepository.findByClinicIdAndQueueDateOrderByQueueNumberAsc(clinicId, date).stream()
-                .filter(entry -> entry.getQueueNumber() == calledNumber)
-                .findFirst()
-                .ifPresent(entry -> sendNotification(entry,
-                        NotificationType.QUEUE_CALLED,
-                        "It’s your turn. Kindly proceed to the consultation room.%n%nWe look forward to serving you.%nWarm regards,%nSingHealth Clinic Team"));
+    @Override
+    public Map<Integer, Integer> estimateWaitMinutes(Long clinicId) {
+        Map<Integer, Integer> estimates = new HashMap<>();
+        for (Queue.Ahead place : queueRegistry.get(clinicId, LocalDate.now()).waitingInCallOrder()) {
+            estimates.put(place.queueNumber(), waitTimeEstimator.estimateWaitMinutes(clinicId, place.ahead(),
+                    place.doctorId(), place.aheadForDoctor()));
+        }
+        return estimates;
     }
 
-    private void sendNotification(QueueEntry entry, NotificationType type, String message) {
-        if (entry.getAppointmentId() == null) {
-            return;
-        }
-        appointmentRepository.findById(entry.getAppointmentId()).ifPresent(appointment -> {
-            NotificationRequest request = new NotificationRequest();
-            request.setUserId(appointment.getPatientId());
-            request.setType(type.name());
-            request.setMessage(message);
-            notificationService.sendNotification(request);
-        });
+    @Override
+    @Transactional(readOnly = true)
+    public List<QueueChange> loadActiveEntries(Long clinicId) {
+        List<QueueEntry> entries = queueRegistry.get(clinicId, LocalDate.now()).activeEntries();
+
+        // batch-load appointments and names referenced by the visible entries
+        Map<Long, Appointment> appointments = appointmentRepository
+                .findAllById(entries.stream()
+                        .map(QueueEntry::getAppointmentId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Appointment::getId, appointment -> appointment));
+        return addedChanges(entries, appointments);
     }
 
-    // Helper: assemble minimal queue snapshot and broadcast
-    private void publishQueueSnapshot(Long clinicId) {
-        LocalDate today = LocalDate.now();
-        List<QueueStatus> statuses = List.of(QueueStatus.WAITING, QueueStatus.FAST_TRACKED, QueueStatus.CALLED);
-        List<QueueEntry> entries = queueEntryRepository.findByClinicIdAndQueueDateAndStatusInOrderByQueueNumberAsc(clinicId, today, statuses);
-
-        int total = entries.size();
-
-        // batch-load appointments referenced by queue entries to obtain patientId/doctorId
-        List<Long> apptIds = entries.stream()
-                .map(QueueEntry::getAppointmentId)
-                .filter(Objects::nonNull)
-                .distinct()
-                .collect(Collectors.toList());
-        Map<Long, Appointment> apptMap = new HashMap<>();
-        if (!apptIds.isEmpty()) {
-            appointmentRepository.findAllById(apptIds).forEach(a -> apptMap.put(a.getId(), a));
-        }
-
-        Map<String, Object> next = null;
-        if (!entries.isEmpty()) {
-            QueueEntry first = entries.get(0);
-            Map<String, Object> m = new HashMap<>();
-            m.put("queueNumber", first.getQueueNumber());
-            Appointment a = first.getAppointmentId() != null ? apptMap.get(first.getAppointmentId()) : null;
-
-            // resolve names (send names instead of IDs)
-            String patientName = null;
-            String doctorName = null;
-            if (a != null) {
-                Long pid = a.getPatientId();
-                Long did = a.getDoctorId();
-                if (pid != null) {
-                    var opt = patientProfileRepository.findById(pid);
-                    if (opt.isPresent()) patientName = opt.get().getFullName();
-                }
-                if (did != null) {
-                    var optD = doctorProfileRepository.findById(did);
-                    if (optD.isPresent()) doctorName = optD.get().getFullName();
-                }
-            }
-            m.put("patientName", patientName);
-            m.put("doctorName", doctorName);
-
-            m.put("status", first.getStatus() != null ? first.getStatus().name() : null);
-            next = m;
-        }
-
-        List<Map<String, Object>> queue = new ArrayList<>();
-        for (QueueEntry e : entries) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("queueNumber", e.getQueueNumber());
-            Appointment a = e.getAppointmentId() != null ? apptMap.get(e.getAppointmentId()) : null;
-
-            // resolve names (send names instead of IDs)
-            String patientName = null;
-            String doctorName = null;
-            if (a != null) {
-                Long pid = a.getPatientId();
-                Long did = a.getDoctorId();
-                if (pid != null) {
-                    var opt = patientProfileRepository.findById(pid);
-                    if (opt.isPresent()) patientName = opt.get().getFullName();
-                }
-                if (did != null) {
-                    var optD = doctorProfileRepository.findById(did);
-                    if (optD.isPresent()) doctorName = optD.get().getFullName();
-                }
-            }
-            m.put("patientName", patientName);
-            m.put("doctorName", doctorName);
+    // ADDED changes for the entries, with names batch-loaded for their appointments
+    private List<QueueChange> addedChanges(List<QueueEntry> entries, Map<Long, Appointment> appointments) {
+        NameResolver.Names names = nameResolver.resolve(appointments.values(),
+                Appointment::getPatientId, Appointment::getDoctorId);
+        List<QueueChange> changes = new ArrayList<>(entries.size());
+        for (QueueEntry entry : entries) {
+            Appointment a = entry.getAppointmentId() != null ? appointments.get(entry.getAppointmentId()) : null;
+            changes.add(QueueChange.added(entry.getQueueNumber(), entry.getStatus(), entry.getDoctorId(),
+                    a != null ? names.patient(a.getPatientId()) : null,
+                    a != null ? names.doctor(a.getDoctorId()) : null));
+        }
+        return changes;
+    }
 
-            m.put("status", e.getStatus() != null ? e.getStatus().name() : null);
-            queue.add(m);
+    // entries leaving the visible queue are removed; re-activated ones are sent in full
+    private QueueChange changeFor(QueueEntry entry, boolean wasActive) {
+        if (!entry.isActive()) {
+            return QueueChange.removed(entry.getQueueNumber());
+        }
+        if (wasActive || entry.getAppointmentId() == null) {
+            return QueueChange.statusChanged(entry.getQueueNumber(), entry.getStatus());
         }
+        return appointmentRepository.findById(entry.getAppointmentId())
+                .map(appointment -> addedChange(entry, appointment))
+                .orElseGet(() -> QueueChange.added(entry.getQueueNumber(), entry.getStatus(), entry.getDoctorId(),
+                        null, null));
+    }
 
-        webSocketHandler.sendQueueUpdate(clinicId, total, next, queue);
+    private QueueChange addedChange(QueueEntry entry, Appointment appointment) {
+        return addedChanges(List.of(entry), Map.of(appointment.getId(), appointment)).get(0);
     }
 }
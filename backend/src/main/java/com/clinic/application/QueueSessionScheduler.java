@@ -0,0 +1,82 @@
+package com.clinic.application;
+
+import com.clinic.websocket.QueueUpdatePublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Starts each clinic's queue session when the clinic opens, so nobody has to press start.
+ *
+ * Clinics inside their opening hours without a session for today get an ACTIVE one, all in one
+ * batched insert; sessions staff already started or paused are left alone. The new state is
+ * loaded into the resident queues straight away, so check-in and callNext read it from memory
+ * from the first request. Closing is done by {@link QueueEndOfDaySweep}. Like the sweep,
+ * only the node holding the scheduler lock does the work.
+ */
+@Component
+public class QueueSessionScheduler {
+    private static final Logger log = LoggerFactory.getLogger(QueueSessionScheduler.class);
+    private static final String LOCK_NAME = "queue-auto-start";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLock schedulerLock;
+    private final QueueRegistry queueRegistry;
+    private final QueueUpdatePublisher queueUpdatePublisher;
+    private final boolean enabled;
+
+    public QueueSessionScheduler(JdbcTemplate jdbcTemplate,
+                                 SchedulerLock schedulerLock,
+                                 QueueRegistry queueRegistry,
+                                 QueueUpdatePublisher queueUpdatePublisher,
+                                 @Value("${app.queue.auto-start.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedulerLock = schedulerLock;
+        this.queueRegistry = queueRegistry;
+        this.queueUpdatePublisher = queueUpdatePublisher;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(cron = "${app.queue.auto-start.cron:0 * * * * *}")
+    public void startOpenClinics() {
+        if (!enabled || !schedulerLock.tryLock(LOCK_NAME, Duration.ofMinutes(1))) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDate today = now.toLocalDate();
+            Time time = Time.valueOf(now.toLocalTime());
+            List<Long> opening = jdbcTemplate.queryForList("""
+                    SELECT c.id
+                      FROM clinics c
+                     WHERE c.open_time <= ? AND c.close_time > ?
+                       AND NOT EXISTS (SELECT 1 FROM queue_sessions s WHERE s.clinic_id = c.id AND s.queue_date = ?)
+                    """, Long.class, time, time, Date.valueOf(today));
+            if (opening.isEmpty()) {
+                return;
+            }
+            // a session staff created in the meantime wins over ours
+            jdbcTemplate.batchUpdate(
+                    "INSERT IGNORE INTO queue_sessions (clinic_id, queue_date, state, version) VALUES (?, ?, 'ACTIVE', 0)",
+                    opening.stream().map(clinicId -> new Object[]{clinicId, Date.valueOf(today)}).toList());
+
+            for (Long clinicId : opening) {
+                queueRegistry.reload(clinicId, today);
+                queueUpdatePublisher.publishSnapshot(clinicId);
+            }
+            log.info("Started queue sessions for {} clinics", opening.size());
+        } finally {
+            schedulerLock.unlock(LOCK_NAME);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.clinic.application;
+
+import com.clinic.api.patients.dto.QueueStatusResponse;
+import com.clinic.websocket.QueueUpdateListener;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-sent event streams of a patient's queue status.
+ *
+ * A stream is re-evaluated from the resident queues whenever its clinic publishes a batch
+ * of changes, and only sends when the patient's status, position, the clinic's current
+ * number or the queue state actually changed. Writes run on virtual threads so that open
+ * streams cost no request thread and a slow phone only delays itself.
+ */
+@Component
+public class QueueStatusStreams implements QueueUpdateListener {
+    private static final Logger log = LoggerFactory.getLogger(QueueStatusStreams.class);
+    private static final String STATUS_EVENT = "queue-status";
+    private static final String NOT_QUEUED_EVENT = "not-queued";
+
+    private final QueueService queueService;
+    private final long timeoutMillis;
+    private final Set<PatientStream> streams = ConcurrentHashMap.newKeySet();
+    // streams by the clinic their patient is queued at; unplaced streams are checked on every update
+    private final Map<Long, Set<PatientStream>> streamsByClinic = new ConcurrentHashMap<>();
+    private final Set<PatientStream> unplaced = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("sse-heartbeat").daemon().factory());
+
+    public QueueStatusStreams(QueueService queueService,
+                              @Value("${app.sse.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${app.sse.heartbeat-ms:25000}") long heartbeatMillis) {
+        this.queueService = queueService;
+        this.timeoutMillis = timeoutMillis;
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        sendExecutor.shutdownNow();
+    }
+
+    public SseEmitter open(Long patientId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        PatientStream stream = new PatientStream(patientId, emitter);
+        streams.add(stream);
+        unplaced.add(stream);
+        emitter.onCompletion(() -> close(stream));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> close(stream));
+        sendExecutor.execute(() -> refresh(stream));
+        return emitter;
+    }
+
+    @Override
+    public void queueUpdated(Long clinicId, boolean remote) {
+        streamsByClinic.getOrDefault(clinicId, Set.of())
+                .forEach(stream -> sendExecutor.execute(() -> refresh(stream)));
+        unplaced.forEach(stream -> sendExecutor.execute(() -> refresh(stream)));
+    }
+
+    private void refresh(PatientStream stream) {
+        synchronized (stream) {
+            if (stream.closed) {
+                return;
+            }
+            QueueStatusResponse status;
+            try {
+                status = queueService.getStatusForPatient(stream.patientId);
+            } catch (ResponseStatusException ex) {
+                status = null;
+            }
+            String key = status == null ? NOT_QUEUED_EVENT : status.getClinicId() + "|" + status.getStatus()
+                    + "|" + status.getQueueNumber() + "|" + status.getCurrentNumber()
+                    + "|" + status.getNumbersAway() + "|" + status.getEstimatedWaitMinutes() + "|" + status.getState();
+            if (key.equals(stream.lastSent)) {
+                return;
+            }
+            place(stream, status != null ? status.getClinicId() : null);
+            try {
+                if (status != null) {
+                    stream.emitter.send(SseEmitter.event().name(STATUS_EVENT).data(status, MediaType.APPLICATION_JSON));
+                } else {
+                    stream.emitter.send(SseEmitter.event().name(NOT_QUEUED_EVENT).data(""));
+                }
+                stream.lastSent = key;
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Dropping queue status stream for patientId={}: {}", stream.patientId, ex.getMessage());
+                stream.emitter.completeWithError(ex);
+                close(stream);
+            }
+        }
+    }
+
+    private void place(PatientStream stream, Long clinicId) {
+        if (stream.clinicId == null ? clinicId == null : stream.clinicId.equals(clinicId)) {
+            return;
+        }
+        if (stream.clinicId != null) {
+            streamsByClinic.getOrDefault(stream.clinicId, Set.of()).remove(stream);
+        } else {
+            unplaced.remove(stream);
+        }
+        stream.clinicId = clinicId;
+        if (clinicId != null) {
+            streamsByClinic.computeIfAbsent(clinicId, id -> ConcurrentHashMap.newKeySet()).add(stream);
+        } else {
+            unplaced.add(stream);
+        }
+    }
+
+    private void close(PatientStream stream) {
+        synchronized (stream) {
+            stream.closed = true;
+            streams.remove(stream);
+            unplaced.remove(stream);
+            if (stream.clinicId != null) {
+                streamsByClinic.getOrDefault(stream.clinicId, Set.of()).remove(stream);
+            }
+        }
+    }
+
+    // keeps proxies from closing idle streams
+    private void sendHeartbeats() {
+        streams.forEach(stream -> sendExecutor.execute(() -> {
+            synchronized (stream) {
+                if (stream.closed) {
+                    return;
+                }
+                try {
+                    stream.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException ex) {
+                    stream.emitter.completeWithError(ex);
+                    close(stream);
+                }
+            }
+        }));
+    }
+
+    private static final class PatientStream {
+        private final Long patientId;
+        private final SseEmitter emitter;
+        private Long clinicId;
+        private String lastSent;
+        private boolean closed;
+
+        private PatientStream(Long patientId, SseEmitter emitter) {
+            this.patientId = patientId;
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.clinic.application;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Cluster-wide lock for scheduled jobs, held as a lease row in {@code scheduler_locks}.
+ *
+ * Taking the lock is a single conditional update (or the first insert), so exactly one node
+ * wins per run. The lease expires on its own if the holder dies; times come from the database
+ * so node clocks do not matter.
+ */
+@Component
+public class SchedulerLock {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public SchedulerLock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Take the named lock for at most {@code leaseTime}; false if another node holds it.
+     */
+    public boolean tryLock(String name, Duration leaseTime) {
+        long millis = leaseTime.toMillis();
+        int updated = jdbcTemplate.update("""
+                UPDATE scheduler_locks
+                   SET locked_until = NOW(3) + INTERVAL ? * 1000 MICROSECOND, locked_by = ?
+                 WHERE name = ? AND locked_until <= NOW(3)
+                """, millis, nodeId, name);
+        if (updated > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("""
+                    INSERT INTO scheduler_locks (name, locked_until, locked_by)
+                    VALUES (?, NOW(3) + INTERVAL ? * 1000 MICROSECOND, ?)
+                    """, name, millis, nodeId);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    public void unlock(String name) {
+        jdbcTemplate.update("UPDATE scheduler_locks SET locked_until = NOW(3) WHERE name = ? AND locked_by = ?",
+                name, nodeId);
+    }
+}
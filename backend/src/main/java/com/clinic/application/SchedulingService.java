@@ -1,22 +1,102 @@
 package com.clinic.application;
 
+import com.clinic.api.patients.dto.AvailableSlotResponse;
 import com.clinic.domain.entity.Clinic;
 import com.clinic.domain.entity.Schedule;
+import com.clinic.domain.schedule.EarliestSlots;
+import com.clinic.domain.schedule.SlotAvailability;
 import com.clinic.infrastructure.persistence.ClinicRepository;
+import com.clinic.infrastructure.persistence.DoctorProfileRepository;
+import com.clinic.infrastructure.persistence.DoctorSummary;
 import com.clinic.infrastructure.persistence.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class SchedulingService {
+    private static final int DEFAULT_SEARCH_DAYS = 14;
+    private static final int MAX_SEARCH_DAYS = 62;
+
     private final ClinicRepository clinicRepository;
     private final ScheduleRepository scheduleRepository;
+    private final DoctorProfileRepository doctorProfileRepository;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
+    private final int defaultSlotLimit;
+    private final int maxSlotLimit;
 
-    public SchedulingService(ClinicRepository clinicRepository, ScheduleRepository scheduleRepository) {
+    public SchedulingService(ClinicRepository clinicRepository, ScheduleRepository scheduleRepository,
+                             DoctorProfileRepository doctorProfileRepository,
+                             SlotAvailabilityIndex slotAvailabilityIndex,
+                             @Value("${app.availability.search.default-limit:10}") int defaultSlotLimit,
+                             @Value("${app.availability.search.max-limit:100}") int maxSlotLimit) {
         this.clinicRepository = clinicRepository;
         this.scheduleRepository = scheduleRepository;
+        this.doctorProfileRepository = doctorProfileRepository;
+        this.slotAvailabilityIndex = slotAvailabilityIndex;
+        this.defaultSlotLimit = defaultSlotLimit;
+        this.maxSlotLimit = maxSlotLimit;
+    }
+
+    /**
+     * The earliest free slots across the clinic's doctors between {@code from} and {@code to}
+     * (inclusive, defaulting to today and two weeks on), optionally only for one specialty.
+     * Slots come in time order, ties by doctor id; slots that have already started are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<AvailableSlotResponse> findEarliestSlots(Long clinicId, LocalDate from, LocalDate to,
+                                                         String specialty, Integer limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate start = from != null && from.isAfter(now.toLocalDate()) ? from : now.toLocalDate();
+        LocalDate end = to != null ? to : start.plusDays(DEFAULT_SEARCH_DAYS - 1);
+        if (to != null && to.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must not be before from or today");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_SEARCH_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search range must be at most " + MAX_SEARCH_DAYS + " days");
+        }
+        int size = limit != null ? limit : defaultSlotLimit;
+        if (size <= 0 || size > maxSlotLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + maxSlotLimit);
+        }
+
+        Map<Long, DoctorSummary> doctors = new HashMap<>();
+        for (DoctorSummary doctor : doctorProfileRepository.findSummariesByClinicId(clinicId)) {
+            if (specialty == null || specialty.isBlank() || specialty.trim().equalsIgnoreCase(doctor.getSpecialty())) {
+                doctors.put(doctor.getId(), doctor);
+            }
+        }
+        if (doctors.isEmpty()) {
+            if (!clinicRepository.existsById(clinicId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Clinic not found");
+            }
+            return List.of();
+        }
+
+        Map<Long, List<SlotAvailability>> days = slotAvailabilityIndex.getClinicDays(clinicId, doctors.keySet(), start, end);
+        List<AvailableSlotResponse> slots = new ArrayList<>(size);
+        for (EarliestSlots.FreeSlot slot : EarliestSlots.find(new ArrayList<>(days.values()), now, size)) {
+            DoctorSummary doctor = doctors.get(slot.doctorId());
+            AvailableSlotResponse response = new AvailableSlotResponse();
+            response.setClinicId(clinicId);
+            response.setDoctorId(doctor.getId());
+            response.setDoctorName(doctor.getFullName());
+            response.setSpecialty(doctor.getSpecialty());
+            response.setDateTime(slot.dateTime());
+            slots.add(response);
+        }
+        return slots;
     }
 
     @Transactional
@@ -35,7 +115,9 @@ public class SchedulingService {
                     return s;
                 });
         sched.setSlotIntervalMinutes(interval);
-        return scheduleRepository.save(sched);
+        Schedule saved = scheduleRepository.save(sched);
+        slotAvailabilityIndex.evictDoctor(doctorId);
+        return saved;
     }
 
     @Transactional
@@ -50,5 +132,6 @@ public class SchedulingService {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Clinic not found"));
         clinic.setDefaultSlotIntervalMinutes(minutes);
         clinicRepository.save(clinic);
+        slotAvailabilityIndex.evictClinic(clinicId);
     }
 }
@@ -0,0 +1,308 @@
+package com.clinic.application;
+
+import com.clinic.domain.entity.Appointment;
+import com.clinic.domain.entity.Clinic;
+import com.clinic.domain.entity.DoctorProfile;
+import com.clinic.domain.enums.AppointmentStatus;
+import com.clinic.domain.schedule.SlotAvailability;
+import com.clinic.infrastructure.persistence.AppointmentRepository;
+import com.clinic.infrastructure.persistence.ClinicRepository;
+import com.clinic.infrastructure.persistence.DoctorProfileRepository;
+import com.clinic.infrastructure.persistence.ScheduleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps a {@link SlotAvailability} per doctor and day in memory.
+ *
+ * A day is loaded with one query for its bookings (plus the doctor, clinic and schedule) the
+ * first time it is needed; after that schedule reads and conflict checks are bit operations.
+ * Claims take effect at once, so two bookings on this node cannot both get the same slot, and
+ * are undone if the transaction does not commit; releases apply after commit. Days are
+ * reloaded after {@code app.availability.ttl-seconds} to pick up bookings made on other nodes,
+ * and dropped when the doctor's schedule or the clinic's hours change. Claims still pending in
+ * a transaction are kept apart from the days and taken again by whichever load replaces one,
+ * since the database cannot show them yet. The database's unique key on active bookings stays
+ * the authority; a day that turns out to be behind it is dropped.
+ */
+@Component
+public class SlotAvailabilityIndex {
+
+    private static final LocalTime DEFAULT_OPEN = LocalTime.of(9, 0);
+    private static final LocalTime DEFAULT_CLOSE = LocalTime.of(17, 0);
+    private static final int DEFAULT_INTERVAL_MINUTES = 15;
+
+    private final DoctorProfileRepository doctorProfileRepository;
+    private final ClinicRepository clinicRepository;
+    private final ScheduleRepository scheduleRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final long ttlNanos;
+    private final ConcurrentMap<DayKey, Loaded> days = new ConcurrentHashMap<>();
+    // slots claimed by transactions that have not finished; changed under the day's lock in days
+    private final ConcurrentMap<DayKey, Set<LocalDateTime>> pendingClaims = new ConcurrentHashMap<>();
+
+    public SlotAvailabilityIndex(DoctorProfileRepository doctorProfileRepository,
+                                 ClinicRepository clinicRepository,
+                                 ScheduleRepository scheduleRepository,
+                                 AppointmentRepository appointmentRepository,
+                                 @Value("${app.availability.ttl-seconds:60}") long ttlSeconds) {
+        this.doctorProfileRepository = doctorProfileRepository;
+        this.clinicRepository = clinicRepository;
+        this.scheduleRepository = scheduleRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    }
+
+    public SlotAvailability get(Long doctorId, LocalDate date) {
+        DayKey key = new DayKey(doctorId, date);
+        Loaded loaded = days.get(key);
+        if (loaded == null || isStale(loaded)) {
+            dropPastDays();
+            loaded = days.compute(key, (k, existing) -> existing == null || isStale(existing)
+                    ? new Loaded(withPendingClaims(k, load(k)), System.nanoTime())
+                    : existing);
+        }
+        return loaded.availability();
+    }
+
+    /**
+     * Each doctor's days from {@code from} to {@code to} inclusive, in date order, for doctors of
+     * one clinic. Days not yet held (or stale) are loaded together: one query for the clinic, one
+     * for the doctors' schedules and one for their bookings over the missing range.
+     */
+    public Map<Long, List<SlotAvailability>> getClinicDays(Long clinicId, Collection<Long> doctorIds,
+                                                           LocalDate from, LocalDate to) {
+        dropPastDays();
+        List<DayKey> missing = new ArrayList<>();
+        for (Long doctorId : doctorIds) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                DayKey key = new DayKey(doctorId, date);
+                Loaded loaded = days.get(key);
+                if (loaded == null || isStale(loaded)) {
+                    missing.add(key);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            loadAll(clinicId, missing);
+        }
+
+        Map<Long, List<SlotAvailability>> result = new LinkedHashMap<>();
+        for (Long doctorId : doctorIds) {
+            List<SlotAvailability> doctorDays = new ArrayList<>();
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                Loaded loaded = days.get(new DayKey(doctorId, date));
+                // evicted since the bulk load; fall back to loading it alone
+                doctorDays.add(loaded != null ? loaded.availability() : get(doctorId, date));
+            }
+            result.put(doctorId, doctorDays);
+        }
+        return result;
+    }
+
+    /**
+     * Take the doctor's slot at {@code time} for the current transaction, or fail with 409 if
+     * it is booked. The slot is given back if the transaction rolls back.
+     */
+    public void claim(Long doctorId, LocalDateTime time) {
+        DayKey key = new DayKey(doctorId, time.toLocalDate());
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        SlotAvailability[] claimedIn = new SlotAvailability[1];
+        get(doctorId, key.date());
+        // under the day's lock, so a reload of the day either sees the pending claim or comes first
+        days.compute(key, (k, existing) -> {
+            Loaded loaded = existing != null ? existing : new Loaded(withPendingClaims(k, load(k)), System.nanoTime());
+            if (loaded.availability().claim(time)) {
+                claimedIn[0] = loaded.availability();
+                if (transactional) {
+                    pendingClaims.computeIfAbsent(k, day -> ConcurrentHashMap.newKeySet()).add(time);
+                }
+            }
+            return loaded;
+        });
+        if (claimedIn[0] == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Doctor already booked for this time slot");
+        }
+        if (transactional) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    finishClaim(key, time, claimedIn[0], status == STATUS_COMMITTED);
+                }
+            });
+        }
+    }
+
+    /**
+     * Free the doctor's slot at {@code time} once the current transaction commits.
+     */
+    public void release(Long doctorId, LocalDateTime time) {
+        if (doctorId == null || time == null) {
+            return;
+        }
+        afterCommit(() -> releaseNow(doctorId, time));
+    }
+
+    public void evictDay(Long doctorId, LocalDate date) {
+        days.remove(new DayKey(doctorId, date));
+    }
+
+    /**
+     * Drop the doctor's days once the current transaction commits, e.g. after their slot
+     * interval changed. Evicting earlier would let a concurrent search reload the old
+     * interval and keep it until the TTL runs out.
+     */
+    public void evictDoctor(Long doctorId) {
+        afterCommit(() -> days.keySet().removeIf(key -> key.doctorId().equals(doctorId)));
+    }
+
+    /**
+     * Drop every day of the clinic's doctors once the current transaction commits.
+     */
+    public void evictClinic(Long clinicId) {
+        afterCommit(() -> days.values().removeIf(loaded -> Objects.equals(loaded.availability().getClinicId(), clinicId)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // once committed the booking is in the database for the next load; otherwise the slot is given back
+    private void finishClaim(DayKey key, LocalDateTime time, SlotAvailability claimedIn, boolean committed) {
+        days.compute(key, (k, current) -> {
+            pendingClaims.computeIfPresent(k, (day, times) -> {
+                times.remove(time);
+                return times.isEmpty() ? null : times;
+            });
+            if (committed || current == null) {
+                return current;
+            }
+            if (current.availability() == claimedIn) {
+                claimedIn.release(time);
+                return current;
+            }
+            // reloaded meanwhile, where the slot may also stand for a booking made elsewhere; read it again
+            return null;
+        });
+    }
+
+    // days before today are not booked into any more
+    private void dropPastDays() {
+        days.keySet().removeIf(existing -> existing.date().isBefore(LocalDate.now()));
+    }
+
+    private SlotAvailability withPendingClaims(DayKey key, SlotAvailability availability) {
+        pendingClaims.getOrDefault(key, Set.of()).forEach(availability::claim);
+        return availability;
+    }
+
+    private boolean isStale(Loaded loaded) {
+        return System.nanoTime() - loaded.loadedAt() > ttlNanos;
+    }
+
+    private void releaseNow(Long doctorId, LocalDateTime time) {
+        Loaded loaded = days.get(new DayKey(doctorId, time.toLocalDate()));
+        if (loaded != null) {
+            loaded.availability().release(time);
+        }
+    }
+
+    private SlotAvailability load(DayKey key) {
+        DoctorProfile doctor = doctorProfileRepository.findById(key.doctorId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Doctor not found"));
+        Clinic clinic = doctor.getClinicId() != null
+                ? clinicRepository.findById(doctor.getClinicId()).orElse(null)
+                : null;
+        Integer interval = scheduleRepository.findByDoctorId(key.doctorId())
+                .map(schedule -> schedule.getSlotIntervalMinutes())
+                .orElse(null);
+        SlotAvailability availability = emptyDay(key, doctor.getClinicId(), clinic, interval);
+        claimBookings(availability, appointmentRepository.findByDoctorIdAndDateTimeBetween(
+                key.doctorId(), key.date().atStartOfDay(), key.date().plusDays(1).atStartOfDay()));
+        return availability;
+    }
+
+    private void loadAll(Long clinicId, List<DayKey> keys) {
+        Clinic clinic = clinicRepository.findById(clinicId).orElse(null);
+        Set<Long> doctorIds = new HashSet<>();
+        LocalDate first = keys.get(0).date();
+        LocalDate last = first;
+        for (DayKey key : keys) {
+            doctorIds.add(key.doctorId());
+            first = key.date().isBefore(first) ? key.date() : first;
+            last = key.date().isAfter(last) ? key.date() : last;
+        }
+        Map<Long, Integer> intervals = new HashMap<>();
+        scheduleRepository.findByDoctorIdIn(doctorIds)
+                .forEach(schedule -> intervals.put(schedule.getDoctorId(), schedule.getSlotIntervalMinutes()));
+        Map<DayKey, List<Appointment>> bookings = new HashMap<>();
+        for (Appointment appointment : appointmentRepository.findByDoctorIdInAndDateTimeBetween(
+                doctorIds, first.atStartOfDay(), last.plusDays(1).atStartOfDay())) {
+            bookings.computeIfAbsent(new DayKey(appointment.getDoctorId(), appointment.getDateTime().toLocalDate()),
+                    key -> new ArrayList<>()).add(appointment);
+        }
+
+        long loadedAt = System.nanoTime();
+        for (DayKey key : keys) {
+            SlotAvailability availability = emptyDay(key, clinicId, clinic, intervals.get(key.doctorId()));
+            claimBookings(availability, bookings.getOrDefault(key, List.of()));
+            // keep a fresh day loaded (and possibly claimed into) meanwhile; pending claims are
+            // taken under the day's lock so none can slip in between
+            days.compute(key, (k, existing) -> existing == null || isStale(existing)
+                    ? new Loaded(withPendingClaims(k, availability), loadedAt)
+                    : existing);
+        }
+    }
+
+    private static SlotAvailability emptyDay(DayKey key, Long clinicId, Clinic clinic, Integer scheduleInterval) {
+        int interval = scheduleInterval != null ? scheduleInterval
+                : clinic != null ? clinic.getDefaultSlotIntervalMinutes() : DEFAULT_INTERVAL_MINUTES;
+        LocalTime open = clinic != null && clinic.getOpenTime() != null ? clinic.getOpenTime() : DEFAULT_OPEN;
+        LocalTime close = clinic != null && clinic.getCloseTime() != null ? clinic.getCloseTime() : DEFAULT_CLOSE;
+        return new SlotAvailability(key.doctorId(), clinicId, key.date(), open, close, interval);
+    }
+
+    private static void claimBookings(SlotAvailability availability, List<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            // range queries include midnight of the next day
+            if (appointment.getStatus() != AppointmentStatus.CANCELLED
+                    && appointment.getDateTime().toLocalDate().equals(availability.getDate())) {
+                availability.claim(appointment.getDateTime());
+            }
+        }
+    }
+
+    private record DayKey(Long doctorId, LocalDate date) {
+    }
+
+    private record Loaded(SlotAvailability availability, long loadedAt) {
+    }
+}
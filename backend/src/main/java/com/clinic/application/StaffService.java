@@ -4,31 +4,22 @@ import com.clinic.api.patients.dto.AppointmentRequest;
 import com.clinic.api.staff.dto.AppointmentResponse;
 import com.clinic.api.staff.dto.DailyReportResponse;
 import com.clinic.api.staff.dto.RescheduleRequest;
-import com.clinic.infrastructure.persistence.DoctorProfileRepository;
-import com.clinic.infrastructure.persistence.PatientProfileRepository;
+import com.clinic.application.dto.CursorPage;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class StaffService {
 
     private final AppointmentService appointmentService;
     private final ReportService reportService;
-    private final PatientProfileRepository patientProfileRepository;
-    private final DoctorProfileRepository doctorProfileRepository;
 
     public StaffService(AppointmentService appointmentService, 
-                       ReportService reportService,
-                       PatientProfileRepository patientProfileRepository,
-                       DoctorProfileRepository doctorProfileRepository) {
+                       ReportService reportService) {
         this.appointmentService = appointmentService;
         this.reportService = reportService;
-        this.patientProfileRepository = patientProfileRepository;
-        this.doctorProfileRepository = doctorProfileRepository;
     }
 
     @Transactional
@@ -63,19 +54,15 @@ public class StaffService {
     }
 
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getClinicAppointments(Long clinicId, LocalDate date) {
-        return appointmentService.getClinicAppointments(clinicId, date)
-                .stream()
-                .map(this::toStaffResponse)
-                .collect(Collectors.toList());
+    public CursorPage<AppointmentResponse> getClinicAppointments(Long clinicId, LocalDate date, String cursor, Integer limit) {
+        return appointmentService.getClinicAppointments(clinicId, date, cursor, limit)
+                .map(this::toStaffResponse);
     }
 
     @Transactional(readOnly = true)
-    public List<AppointmentResponse> getUpcomingClinicAppointments(Long clinicId) {
-        return appointmentService.getUpcomingClinicAppointments(clinicId)
-                .stream()
-                .map(this::toStaffResponse)
-                .collect(Collectors.toList());
+    public CursorPage<AppointmentResponse> getUpcomingClinicAppointments(Long clinicId, String cursor, Integer limit) {
+        return appointmentService.getUpcomingClinicAppointments(clinicId, cursor, limit)
+                .map(this::toStaffResponse);
     }
 
     @Transactional(readOnly = true)
@@ -92,14 +79,9 @@ public class StaffService {
         // patient source.getDateTime() is LocalDateTime -> pass it directly to staff DTO (matching its type)
         response.setDateTime(source.getDateTime());
         response.setStatus(source.getStatus());
-        // Fetch and set patient name
-        patientProfileRepository.findById(source.getPatientId())
-            .ifPresent(patient -> response.setPatientName(patient.getFullName()));
-        // Fetch and set doctor name
-        if (source.getDoctorId() != null) {
-            doctorProfileRepository.findById(source.getDoctorId())
-                .ifPresent(doctor -> response.setDoctorName(doctor.getFullName()));
-        }
+        // names were resolved for the whole page by AppointmentService
+        response.setPatientName(source.getPatientName());
+        response.setDoctorName(source.getDoctorName());
         return response;
     }
 }
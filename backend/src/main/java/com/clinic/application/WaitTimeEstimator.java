@@ -0,0 +1,144 @@
+package com.clinic.application;
+
+import com.clinic.domain.stats.P2Quantile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live estimates of how long patients wait, learned from queue transitions as they happen.
+ *
+ * Consultation durations (called to served) are tracked per clinic and per doctor as an
+ * exponentially weighted moving average plus a P² median sketch. Each clinic also tracks the
+ * average gap between consecutive calls, which already reflects how many doctors are seeing
+ * patients in parallel. A patient waits at least for the clinic to call everyone ahead, and
+ * at least for their own doctor to see the patients ahead booked with them; the estimate is
+ * the longer of the two, using the doctor's median so one visit left open does not skew it.
+ * Estimates are O(1) and never query history; until a clinic has observations the
+ * configured default consultation length is used.
+ */
+@Component
+public class WaitTimeEstimator {
+
+    private final double alpha;
+    private final double defaultConsultationMinutes;
+    private final Duration maxCallGap;
+    private final Map<Long, DurationStats> clinicConsultations = new ConcurrentHashMap<>();
+    private final Map<Long, DurationStats> doctorConsultations = new ConcurrentHashMap<>();
+    private final Map<Long, CallInterval> callIntervals = new ConcurrentHashMap<>();
+
+    public WaitTimeEstimator(@Value("${app.queue.wait-estimate.alpha:0.2}") double alpha,
+                             @Value("${app.queue.wait-estimate.default-consultation-minutes:10}") double defaultConsultationMinutes,
+                             @Value("${app.queue.wait-estimate.max-call-gap-minutes:60}") long maxCallGapMinutes) {
+        this.alpha = alpha;
+        this.defaultConsultationMinutes = defaultConsultationMinutes;
+        this.maxCallGap = Duration.ofMinutes(maxCallGapMinutes);
+    }
+
+    public void recordCall(Long clinicId, LocalDateTime calledAt) {
+        if (clinicId == null || calledAt == null) {
+            return;
+        }
+        callIntervals.computeIfAbsent(clinicId, id -> new CallInterval()).record(calledAt);
+    }
+
+    public void recordConsultation(Long clinicId, Long doctorId, LocalDateTime calledAt, LocalDateTime servedAt) {
+        if (calledAt == null || servedAt == null || servedAt.isBefore(calledAt)) {
+            return;
+        }
+        double minutes = Duration.between(calledAt, servedAt).toMillis() / 60_000.0;
+        if (clinicId != null) {
+            clinicConsultations.computeIfAbsent(clinicId, id -> new DurationStats()).add(minutes);
+        }
+        if (doctorId != null) {
+            doctorConsultations.computeIfAbsent(doctorId, id -> new DurationStats()).add(minutes);
+        }
+    }
+
+    /**
+     * Estimated minutes until a patient with {@code ahead} waiting entries to be called before
+     * them, of which {@code aheadForDoctor} are booked with their doctor, is called.
+     */
+    public int estimateWaitMinutes(Long clinicId, int ahead, Long doctorId, int aheadForDoctor) {
+        if (ahead <= 0) {
+            return 0;
+        }
+        double minutes = ahead * minutesPerPatient(clinicId);
+        double doctorMinutes = medianConsultationMinutes(doctorId);
+        if (!Double.isNaN(doctorMinutes)) {
+            minutes = Math.max(minutes, aheadForDoctor * doctorMinutes);
+        }
+        return (int) Math.round(minutes);
+    }
+
+    public double minutesPerPatient(Long clinicId) {
+        CallInterval interval = callIntervals.get(clinicId);
+        if (interval != null && interval.hasAverage()) {
+            return interval.average();
+        }
+        DurationStats consultations = clinicConsultations.get(clinicId);
+        if (consultations != null && consultations.hasAverage()) {
+            return consultations.average();
+        }
+        return defaultConsultationMinutes;
+    }
+
+    /**
+     * Median consultation length for the doctor in minutes, or NaN if none observed yet.
+     */
+    public double medianConsultationMinutes(Long doctorId) {
+        DurationStats stats = doctorId != null ? doctorConsultations.get(doctorId) : null;
+        return stats != null ? stats.median() : Double.NaN;
+    }
+
+    private final class DurationStats {
+        private double average = Double.NaN;
+        private final P2Quantile median = new P2Quantile(0.5);
+
+        private synchronized void add(double minutes) {
+            average = Double.isNaN(average) ? minutes : alpha * minutes + (1 - alpha) * average;
+            median.add(minutes);
+        }
+
+        private synchronized boolean hasAverage() {
+            return !Double.isNaN(average);
+        }
+
+        private synchronized double average() {
+            return average;
+        }
+
+        private synchronized double median() {
+            return median.value();
+        }
+    }
+
+    private final class CallInterval {
+        private LocalDateTime lastCall;
+        private double average = Double.NaN;
+
+        private synchronized void record(LocalDateTime calledAt) {
+            if (lastCall != null && calledAt.isAfter(lastCall)) {
+                Duration gap = Duration.between(lastCall, calledAt);
+                // long gaps are breaks or a new day, not throughput
+                if (gap.compareTo(maxCallGap) <= 0) {
+                    double minutes = gap.toMillis() / 60_000.0;
+                    average = Double.isNaN(average) ? minutes : alpha * minutes + (1 - alpha) * average;
+                }
+            }
+            lastCall = calledAt;
+        }
+
+        private synchronized boolean hasAverage() {
+            return !Double.isNaN(average);
+        }
+
+        private synchronized double average() {
+            return average;
+        }
+    }
+}
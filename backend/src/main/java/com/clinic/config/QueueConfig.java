@@ -0,0 +1,16 @@
+package com.clinic.config;
+
+import com.clinic.domain.queue.QueuePriorities;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QueueConfig {
+
+    @Bean
+    public QueuePriorities queuePriorities(
+            @Value("${app.queue.priority-classes:urgent:120,fast-track:30,elderly:15,regular:0}") String priorityClasses) {
+        return QueuePriorities.parse(priorityClasses);
+    }
+}
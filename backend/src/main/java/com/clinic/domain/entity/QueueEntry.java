@@ -3,9 +3,12 @@ package com.clinic.domain.entity;
 import com.clinic.domain.enums.QueueStatus;
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "queue_entries")
+@Table(name = "queue_entries", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"clinic_id", "queue_date", "queue_number"})
+})
 public class QueueEntry {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,21 +27,75 @@ public class QueueEntry {
     @Column(name = "status", nullable = false, length = 20)
     private QueueStatus status;
 
+    @Column(name = "priority_class", length = 20)
+    private String priorityClass;
+
     @Column(name = "appointment_id")
     private Long appointmentId;
 
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "checked_in_at")
+    private LocalDateTime checkedInAt;
+
+    @Column(name = "called_at")
+    private LocalDateTime calledAt;
+
+    @Column(name = "served_at")
+    private LocalDateTime servedAt;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public void updateStatus(QueueStatus newStatus) {
         this.status = newStatus;
+        if (newStatus == QueueStatus.CALLED) {
+            this.calledAt = LocalDateTime.now();
+        } else if (newStatus == QueueStatus.SERVED) {
+            this.servedAt = LocalDateTime.now();
+        }
     }
 
     public void fastTrack() {
         this.status = QueueStatus.FAST_TRACKED;
     }
 
+    /**
+     * Detached copy with the same id and version, so it can be changed and saved without
+     * touching this instance.
+     */
+    public QueueEntry copy() {
+        QueueEntry copy = new QueueEntry();
+        copy.id = id;
+        copy.clinicId = clinicId;
+        copy.queueDate = queueDate;
+        copy.queueNumber = queueNumber;
+        copy.status = status;
+        copy.priorityClass = priorityClass;
+        copy.appointmentId = appointmentId;
+        copy.patientId = patientId;
+        copy.doctorId = doctorId;
+        copy.checkedInAt = checkedInAt;
+        copy.calledAt = calledAt;
+        copy.servedAt = servedAt;
+        copy.version = version;
+        return copy;
+    }
+
     public boolean isWaiting() {
         return status == QueueStatus.WAITING || status == QueueStatus.FAST_TRACKED;
     }
 
+    // still shown on queue displays: waiting, fast-tracked or currently called
+    public boolean isActive() {
+        return isWaiting() || status == QueueStatus.CALLED;
+    }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public Long getClinicId() { return clinicId; }
@@ -49,6 +106,20 @@ public class QueueEntry {
     public void setQueueNumber(Integer queueNumber) { this.queueNumber = queueNumber; }
     public QueueStatus getStatus() { return status; }
     public void setStatus(QueueStatus status) { this.status = status; }
+    public String getPriorityClass() { return priorityClass; }
+    public void setPriorityClass(String priorityClass) { this.priorityClass = priorityClass; }
     public Long getAppointmentId() { return appointmentId; }
     public void setAppointmentId(Long appointmentId) { this.appointmentId = appointmentId; }
+    public Long getPatientId() { return patientId; }
+    public void setPatientId(Long patientId) { this.patientId = patientId; }
+    public Long getDoctorId() { return doctorId; }
+    public void setDoctorId(Long doctorId) { this.doctorId = doctorId; }
+    public LocalDateTime getCheckedInAt() { return checkedInAt; }
+    public void setCheckedInAt(LocalDateTime checkedInAt) { this.checkedInAt = checkedInAt; }
+    public LocalDateTime getCalledAt() { return calledAt; }
+    public void setCalledAt(LocalDateTime calledAt) { this.calledAt = calledAt; }
+    public LocalDateTime getServedAt() { return servedAt; }
+    public void setServedAt(LocalDateTime servedAt) { this.servedAt = servedAt; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -21,7 +21,11 @@ public class QueueSession {
 
     @Enumerated(EnumType.STRING)
     @Column(name = "state", nullable = false)
-    private QueueState state; // ACTIVE or PAUSED
+    private QueueState state; // ACTIVE, PAUSED or CLOSED
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -31,6 +35,8 @@ public class QueueSession {
     public void setQueueDate(LocalDate queueDate) { this.queueDate = queueDate; }
     public QueueState getState() { return state; }
     public void setState(QueueState state) { this.state = state; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 
     public void start() {
         this.state = QueueState.ACTIVE;
@@ -39,4 +45,8 @@ public class QueueSession {
     public void pause() {
         this.state = QueueState.PAUSED;
     }
+
+    public boolean isClosed() {
+        return state == QueueState.CLOSED;
+    }
 }
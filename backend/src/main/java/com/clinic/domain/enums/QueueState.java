@@ -1,5 +1,5 @@
 package com.clinic.domain.enums;
 
 public enum QueueState {
-    ACTIVE, PAUSED
+    ACTIVE, PAUSED, CLOSED
 }
@@ -0,0 +1,83 @@
+package com.clinic.domain.queue;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed tree of counts over positive indexes (queue numbers), growing on demand.
+ * Point updates, prefix sums and "k-th set index" searches are O(log n).
+ */
+final class FenwickTree {
+
+    private long[] tree = new long[64];
+    private long total;
+
+    void add(int index, int delta) {
+        if (index <= 0) {
+            return;
+        }
+        ensureCapacity(index);
+        total += delta;
+        for (int i = index; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Sum of counts at indexes 1..index.
+     */
+    long prefixSum(int index) {
+        long sum = 0;
+        for (int i = Math.min(index, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    long total() {
+        return total;
+    }
+
+    /**
+     * Smallest index whose prefix sum reaches k, or 0 when k is out of range.
+     */
+    int findKth(long k) {
+        if (k <= 0 || k > total) {
+            return 0;
+        }
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] < k) {
+                position = next;
+                k -= tree[next];
+            }
+        }
+        return position + 1;
+    }
+
+    /**
+     * Largest index with a non-zero count, or 0 when empty.
+     */
+    int maxIndex() {
+        return findKth(total);
+    }
+
+    private void ensureCapacity(int index) {
+        if (index < tree.length) {
+            return;
+        }
+        int size = tree.length;
+        while (size <= index) {
+            size <<= 1;
+        }
+        // existing nodes keep their ranges; each new node sums the nodes its range covers
+        long[] grown = Arrays.copyOf(tree, size);
+        for (int i = tree.length; i < size; i++) {
+            int lowest = i & -i;
+            for (int child = i - 1; child > i - lowest; child -= child & -child) {
+                grown[i] += grown[child];
+            }
+        }
+        tree = grown;
+    }
+}
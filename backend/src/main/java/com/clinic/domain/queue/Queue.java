@@ -7,32 +7,64 @@ import com.clinic.domain.enums.QueueStatus;
 
 import java.time.LocalDate;
 import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Long-lived queue for one clinic on one day, holding committed state only.
+ *
+ * Waiting entries are kept in call order (see {@link QueuePriorities}) in an order-statistic
+ * tree, clinic-wide and per doctor, so that calling, fast-tracking, priority and status
+ * changes are O(log n) and so is "how many will be called before me", overall or for my
+ * doctor: an entry's rank in call order. Every entry is also indexed by queue number and by
+ * patient, and a Fenwick tree over the called or served queue numbers answers "current
+ * number" in O(log n).
+ *
+ * The queue keeps its own copies of entries and hands out copies, so callers change and save
+ * a copy and pass the committed result back through {@link #apply(QueueEntry)}. A caller that
+ * is about to call a patient first claims the entry with {@link #claimNext()}, which hides it
+ * from other callers until the claim is released, without changing what anyone reads.
+ */
 public class Queue {
 
     private final Long clinicId;
     private final LocalDate queueDate;
     private QueueState state;
-    private final List<QueueEntry> entries;
+    private final Map<Integer, QueueEntry> entriesByNumber = new HashMap<>();
+    private final Comparator<QueueEntry> callOrder;
+    private final RankedSet<QueueEntry> waiting;
+    private final Map<Long, List<QueueEntry>> entriesByPatient = new HashMap<>();
+    private final Map<Long, RankedSet<QueueEntry>> waitingByDoctor = new HashMap<>();
+    private final FenwickTree reached = new FenwickTree();
+    // waiting entries being called by a transaction that has not finished yet
+    private final Set<Integer> claimed = new HashSet<>();
 
-    private Queue(Long clinicId, LocalDate queueDate, QueueState state, List<QueueEntry> entries) {
+    private Queue(Long clinicId, LocalDate queueDate, QueueState state, QueuePriorities priorities) {
         this.clinicId = clinicId;
         this.queueDate = queueDate;
         this.state = state;
-        this.entries = entries;
+        this.callOrder = priorities.callOrder();
+        this.waiting = new RankedSet<>(callOrder);
     }
 
     public static Queue createOrMerge(Long clinicId,
                                       LocalDate queueDate,
                                       QueueSession session,
-                                      List<QueueEntry> entries) {
-        QueueState state = session != null ? session.getState() : QueueState.ACTIVE;
-        return new Queue(clinicId, queueDate, state, entries);
+                                      List<QueueEntry> entries,
+                                      QueuePriorities priorities) {
+        // no session yet means the queue has not been started today
+        QueueState state = session != null ? session.getState() : null;
+        Queue queue = new Queue(clinicId, queueDate, state, priorities);
+        entries.forEach(queue::apply);
+        return queue;
     }
 
-    public QueueState getState() {
+    public synchronized QueueState getState() {
         return state;
     }
 
@@ -44,35 +76,201 @@ public class Queue {
         return clinicId;
     }
 
-    public QueueEntry callNext() {
-        return entries.stream()
-            .filter(QueueEntry::isWaiting)
-            .min(Comparator
-                .comparingInt((QueueEntry entry) -> entry.getStatus() == QueueStatus.FAST_TRACKED ? 0 : 1)
-                .thenComparingInt(QueueEntry::getQueueNumber))
-            .map(entry -> {
-                entry.updateStatus(QueueStatus.CALLED);
-                return entry;
-            })
-            .orElse(null);
+    /**
+     * The entry {@link #claimNext()} would claim, without claiming it.
+     */
+    public synchronized QueueEntry peekNext() {
+        return peekWaiting(0);
     }
 
-    public void start() {
+    /**
+     * The unclaimed waiting entry with {@code position} others to be called before it, or null
+     * if fewer are waiting. O(log n) for each entry passed over.
+     */
+    public synchronized QueueEntry peekWaiting(int position) {
+        int seen = 0;
+        for (int index = 0; index < waiting.size(); index++) {
+            QueueEntry entry = waiting.get(index);
+            if (!claimed.contains(entry.getQueueNumber()) && seen++ == position) {
+                return entry.copy();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Claim the next entry to call, or return null if every waiting entry is taken. The entry
+     * stays as it is until its new state is applied; until then no other caller gets it.
+     */
+    public synchronized QueueEntry claimNext() {
+        QueueEntry next = peekNext();
+        if (next != null) {
+            claimed.add(next.getQueueNumber());
+        }
+        return next;
+    }
+
+    public synchronized void release(Integer queueNumber) {
+        claimed.remove(queueNumber);
+    }
+
+    public synchronized boolean isClaimed(Integer queueNumber) {
+        return claimed.contains(queueNumber);
+    }
+
+    /**
+     * Take in the committed state of an entry, new or changed. A state older than the one
+     * already held (by row version) is ignored, so late or repeated applies are harmless.
+     */
+    public synchronized void apply(QueueEntry committed) {
+        QueueEntry previous = entriesByNumber.get(committed.getQueueNumber());
+        if (previous != null && isOlder(committed, previous)) {
+            return;
+        }
+        QueueEntry entry = committed.copy();
+        entriesByNumber.put(entry.getQueueNumber(), entry);
+        if (previous != null) {
+            unindex(previous);
+            List<QueueEntry> patientEntries = entriesByPatient.get(previous.getPatientId());
+            if (patientEntries != null) {
+                patientEntries.remove(previous);
+            }
+        }
+        index(entry);
+        if (entry.getPatientId() != null) {
+            entriesByPatient.computeIfAbsent(entry.getPatientId(), id -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    /**
+     * Keep every entry of {@code previous} that is newer than this queue's, e.g. when this
+     * queue was loaded from a read that missed commits {@code previous} had already taken in.
+     */
+    public void keepNewer(Queue previous) {
+        List<QueueEntry> entries;
+        synchronized (previous) {
+            entries = new ArrayList<>(previous.entriesByNumber.values());
+        }
+        entries.forEach(this::apply);
+    }
+
+    public synchronized void start() {
         state = QueueState.ACTIVE;
     }
 
-    public void pause() {
+    public synchronized void pause() {
         state = QueueState.PAUSED;
     }
 
-    public boolean isActive() {
+    public synchronized boolean isActive() {
         return state == QueueState.ACTIVE;
     }
 
-    public Optional<QueueEntry> findEntry(Integer queueNumber) {
-        return entries.stream()
-            .filter(entry -> entry.getQueueNumber().equals(queueNumber))
-            .findFirst();
+    public synchronized Optional<QueueEntry> findEntry(Integer queueNumber) {
+        return Optional.ofNullable(entriesByNumber.get(queueNumber)).map(QueueEntry::copy);
+    }
+
+    public synchronized int waitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * The patient's entry still in the queue (waiting, fast-tracked or called), lowest number first.
+     */
+    public synchronized Optional<QueueEntry> findActiveEntryForPatient(Long patientId) {
+        return entriesByPatient.getOrDefault(patientId, List.of()).stream()
+            .filter(QueueEntry::isActive)
+            .min(Comparator.comparingInt(QueueEntry::getQueueNumber))
+            .map(QueueEntry::copy);
+    }
+
+    /**
+     * Waiting entries that will be called before the given one, or 0 if it is not waiting.
+     */
+    public synchronized int countAhead(Integer queueNumber) {
+        QueueEntry entry = entriesByNumber.get(queueNumber);
+        return entry != null && entry.isWaiting() ? waiting.rank(entry) : 0;
     }
 
+    /**
+     * Waiting entries of the same doctor that will be called before the given one, or 0 if it
+     * is not waiting or has no doctor.
+     */
+    public synchronized int countAheadForDoctor(Integer queueNumber) {
+        QueueEntry entry = entriesByNumber.get(queueNumber);
+        if (entry == null || !entry.isWaiting() || entry.getDoctorId() == null) {
+            return 0;
+        }
+        return waitingByDoctor.get(entry.getDoctorId()).rank(entry);
+    }
+
+    /**
+     * Waiting entries in call order, with how many are ahead of each overall and for its doctor.
+     */
+    public synchronized List<Ahead> waitingInCallOrder() {
+        List<Ahead> result = new ArrayList<>(waiting.size());
+        Map<Long, Integer> aheadByDoctor = new HashMap<>();
+        for (int index = 0; index < waiting.size(); index++) {
+            QueueEntry entry = waiting.get(index);
+            Long doctorId = entry.getDoctorId();
+            int aheadForDoctor = doctorId != null ? aheadByDoctor.merge(doctorId, 1, Integer::sum) - 1 : 0;
+            result.add(new Ahead(entry.getQueueNumber(), doctorId, index, aheadForDoctor));
+        }
+        return result;
+    }
+
+    /**
+     * Highest queue number that has been called or served, or 0 if none.
+     */
+    public synchronized int currentNumber() {
+        return reached.maxIndex();
+    }
+
+    public synchronized List<QueueEntry> activeEntries() {
+        return entriesByNumber.values().stream()
+            .filter(QueueEntry::isActive)
+            .sorted(Comparator.comparingInt(QueueEntry::getQueueNumber))
+            .map(QueueEntry::copy)
+            .toList();
+    }
+
+    private static boolean isOlder(QueueEntry candidate, QueueEntry current) {
+        return candidate.getVersion() != null && current.getVersion() != null
+                && candidate.getVersion() < current.getVersion();
+    }
+
+    private void index(QueueEntry entry) {
+        if (entry.isWaiting()) {
+            waiting.add(entry);
+            if (entry.getDoctorId() != null) {
+                waitingByDoctor.computeIfAbsent(entry.getDoctorId(), id -> new RankedSet<>(callOrder)).add(entry);
+            }
+        }
+        if (isReached(entry)) {
+            reached.add(entry.getQueueNumber(), 1);
+        }
+    }
+
+    private void unindex(QueueEntry entry) {
+        if (entry.isWaiting()) {
+            waiting.remove(entry);
+            if (entry.getDoctorId() != null) {
+                waitingByDoctor.get(entry.getDoctorId()).remove(entry);
+            }
+        }
+        if (isReached(entry)) {
+            reached.add(entry.getQueueNumber(), -1);
+        }
+    }
+
+    private static boolean isReached(QueueEntry entry) {
+        return entry.getStatus() == QueueStatus.CALLED || entry.getStatus() == QueueStatus.SERVED;
+    }
+
+    /**
+     * A waiting entry's place in call order: how many are called before it, overall and for
+     * its doctor.
+     */
+    public record Ahead(Integer queueNumber, Long doctorId, int ahead, int aheadForDoctor) {
+    }
 }
@@ -0,0 +1,57 @@
+package com.clinic.domain.queue;
+
+import com.clinic.domain.enums.QueueStatus;
+
+/**
+ * One change to the visible (waiting, fast-tracked or called) part of a clinic queue.
+ */
+public class QueueChange {
+
+    public enum Type {
+        ADDED, STATUS, REMOVED
+    }
+
+    private final Type type;
+    private final Integer queueNumber;
+    private final QueueStatus status;
+    private final Long doctorId;
+    private final String patientName;
+    private final String doctorName;
+
+    private QueueChange(Type type, Integer queueNumber, QueueStatus status, Long doctorId,
+                        String patientName, String doctorName) {
+        this.type = type;
+        this.queueNumber = queueNumber;
+        this.status = status;
+        this.doctorId = doctorId;
+        this.patientName = patientName;
+        this.doctorName = doctorName;
+    }
+
+    public static QueueChange added(Integer queueNumber, QueueStatus status, Long doctorId,
+                                    String patientName, String doctorName) {
+        return new QueueChange(Type.ADDED, queueNumber, status, doctorId, patientName, doctorName);
+    }
+
+    public static QueueChange statusChanged(Integer queueNumber, QueueStatus status) {
+        return new QueueChange(Type.STATUS, queueNumber, status, null, null, null);
+    }
+
+    public static QueueChange removed(Integer queueNumber) {
+        return new QueueChange(Type.REMOVED, queueNumber, null, null, null, null);
+    }
+
+    /**
+     * Copy of an ADDED change carrying a new status.
+     */
+    public QueueChange withStatus(QueueStatus newStatus) {
+        return new QueueChange(type, queueNumber, newStatus, doctorId, patientName, doctorName);
+    }
+
+    public Type getType() { return type; }
+    public Integer getQueueNumber() { return queueNumber; }
+    public QueueStatus getStatus() { return status; }
+    public Long getDoctorId() { return doctorId; }
+    public String getPatientName() { return patientName; }
+    public String getDoctorName() { return doctorName; }
+}
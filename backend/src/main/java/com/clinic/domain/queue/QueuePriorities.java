@@ -0,0 +1,95 @@
+package com.clinic.domain.queue;
+
+import com.clinic.domain.entity.QueueEntry;
+import com.clinic.domain.enums.QueueStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Priority classes for the call order, each with a head start in minutes.
+ *
+ * An entry's priority is the time it has waited plus the head start of its class, so every
+ * patient's priority rises while they wait: an urgent patient goes ahead of a regular one who
+ * checked in up to the head start earlier, but never ahead of one who has waited longer than
+ * that, and no class can starve another. Fast-tracked entries get at least the fast-track
+ * head start. Since all entries age at the same rate, comparing priorities is the same as
+ * comparing check-in time minus head start, a key that stays fixed while the entry waits, so
+ * the call order fits in a balanced tree without periodic re-sorting.
+ */
+public final class QueuePriorities {
+
+    public static final String REGULAR = "regular";
+    public static final String FAST_TRACK = "fast-track";
+
+    private final Map<String, Long> headStartMillis;
+
+    private QueuePriorities(Map<String, Long> headStartMillis) {
+        this.headStartMillis = headStartMillis;
+    }
+
+    /**
+     * Parse {@code "urgent:120,fast-track:30,elderly:15,regular:0"} (class name to head start in minutes).
+     */
+    public static QueuePriorities parse(String spec) {
+        Map<String, Long> headStarts = new LinkedHashMap<>();
+        headStarts.put(REGULAR, 0L);
+        headStarts.put(FAST_TRACK, 0L);
+        for (String item : spec.split(",")) {
+            if (item.isBlank()) {
+                continue;
+            }
+            String[] parts = item.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid priority class '" + item.trim() + "', expected name:minutes");
+            }
+            long minutes = Long.parseLong(parts[1].trim());
+            if (minutes < 0) {
+                throw new IllegalArgumentException("Head start of priority class '" + parts[0].trim() + "' is negative");
+            }
+            headStarts.put(parts[0].trim().toLowerCase(), minutes * 60_000);
+        }
+        return new QueuePriorities(Collections.unmodifiableMap(headStarts));
+    }
+
+    public static QueuePriorities regularOnly() {
+        return parse("");
+    }
+
+    public Set<String> classes() {
+        return headStartMillis.keySet();
+    }
+
+    public boolean isKnown(String priorityClass) {
+        return priorityClass != null && headStartMillis.containsKey(priorityClass);
+    }
+
+    /**
+     * Order in which waiting entries are called; ties go to the lower queue number.
+     */
+    Comparator<QueueEntry> callOrder() {
+        return Comparator.comparingLong(this::callKey).thenComparingInt(QueueEntry::getQueueNumber);
+    }
+
+    private long callKey(QueueEntry entry) {
+        LocalDateTime checkedInAt = entry.getCheckedInAt() != null
+                ? entry.getCheckedInAt()
+                : entry.getQueueDate().atStartOfDay();
+        return checkedInAt.toInstant(ZoneOffset.UTC).toEpochMilli() - headStart(entry);
+    }
+
+    private long headStart(QueueEntry entry) {
+        // classes dropped from the configuration count as regular
+        String priorityClass = entry.getPriorityClass() != null ? entry.getPriorityClass() : REGULAR;
+        long headStart = headStartMillis.getOrDefault(priorityClass, 0L);
+        if (entry.getStatus() == QueueStatus.FAST_TRACKED) {
+            headStart = Math.max(headStart, headStartMillis.get(FAST_TRACK));
+        }
+        return headStart;
+    }
+}
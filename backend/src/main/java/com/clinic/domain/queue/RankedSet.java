@@ -0,0 +1,151 @@
+package com.clinic.domain.queue;
+
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+/**
+ * Sorted set that also knows positions: an order-statistic treap. Adding, removing, the rank
+ * of an element and the element at a position are O(log n) expected. Not thread-safe.
+ */
+final class RankedSet<E> {
+
+    private final Comparator<? super E> order;
+    private final SplittableRandom random = new SplittableRandom(0x5eed);
+    private Node<E> root;
+
+    RankedSet(Comparator<? super E> order) {
+        this.order = order;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    boolean contains(E element) {
+        Node<E> node = root;
+        while (node != null) {
+            int cmp = order.compare(element, node.value);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    boolean add(E element) {
+        if (contains(element)) {
+            return false;
+        }
+        Node<E>[] parts = split(root, element, false);
+        root = merge(merge(parts[0], new Node<>(element, random.nextInt())), parts[1]);
+        return true;
+    }
+
+    boolean remove(E element) {
+        Node<E>[] below = split(root, element, false);
+        Node<E>[] rest = split(below[1], element, true);
+        root = merge(below[0], rest[1]);
+        return rest[0] != null;
+    }
+
+    /**
+     * Number of elements ordered before the given one, which need not be in the set.
+     */
+    int rank(E element) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node != null) {
+            if (order.compare(element, node.value) <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * The element with {@code index} others before it, or null if the set is smaller.
+     */
+    E get(int index) {
+        Node<E> node = root;
+        while (node != null) {
+            int left = size(node.left);
+            if (index < left) {
+                node = node.left;
+            } else if (index == left) {
+                return node.value;
+            } else {
+                index -= left + 1;
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    // [elements before the pivot (or not after it, if inclusive), the rest]
+    @SuppressWarnings("unchecked")
+    private Node<E>[] split(Node<E> node, E pivot, boolean inclusive) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        int cmp = order.compare(node.value, pivot);
+        if (cmp < 0 || (inclusive && cmp == 0)) {
+            Node<E>[] parts = split(node.right, pivot, inclusive);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        }
+        Node<E>[] parts = split(node.left, pivot, inclusive);
+        node.left = parts[1];
+        node.update();
+        parts[1] = node;
+        return parts;
+    }
+
+    // every element of left is ordered before every element of right
+    private Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static int size(Node<?> node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static final class Node<E> {
+        private final E value;
+        private final int priority;
+        private int size = 1;
+        private Node<E> left;
+        private Node<E> right;
+
+        private Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+
+        private void update() {
+            size = 1 + RankedSet.size(left) + RankedSet.size(right);
+        }
+    }
+}
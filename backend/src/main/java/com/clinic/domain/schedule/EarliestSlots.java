@@ -0,0 +1,100 @@
+package com.clinic.domain.schedule;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The earliest free slots across several doctors, by a k-way merge of their availability.
+ *
+ * Each doctor contributes a cursor over their days in date order; a heap keyed by each
+ * cursor's next free slot yields slots in time order, so finding {@code n} slots among
+ * {@code k} doctors costs O((n + k) log k) heap operations plus bitmap scans, however many
+ * weeks are searched.
+ */
+public final class EarliestSlots {
+
+    public record FreeSlot(Long doctorId, LocalDateTime dateTime) {
+    }
+
+    private EarliestSlots() {
+    }
+
+    /**
+     * @param doctorDays per doctor, their availability for consecutive days in date order
+     * @param notBefore  slots starting earlier are skipped
+     */
+    public static List<FreeSlot> find(List<List<SlotAvailability>> doctorDays, LocalDateTime notBefore, int limit) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Comparator
+                .comparing((Cursor cursor) -> cursor.time)
+                .thenComparing(cursor -> cursor.doctorId()));
+        for (List<SlotAvailability> days : doctorDays) {
+            Cursor cursor = new Cursor(days);
+            if (cursor.seek(notBefore)) {
+                heap.add(cursor);
+            }
+        }
+
+        List<FreeSlot> slots = new ArrayList<>(limit);
+        while (slots.size() < limit && !heap.isEmpty()) {
+            Cursor cursor = heap.poll();
+            slots.add(new FreeSlot(cursor.doctorId(), cursor.time));
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return slots;
+    }
+
+    private static final class Cursor {
+        private final List<SlotAvailability> days;
+        private int day;
+        private int slot;
+        private LocalDateTime time;
+
+        private Cursor(List<SlotAvailability> days) {
+            this.days = days;
+        }
+
+        private Long doctorId() {
+            return days.get(day).getDoctorId();
+        }
+
+        // position on the first free slot at or after the given time
+        private boolean seek(LocalDateTime notBefore) {
+            for (day = 0; day < days.size(); day++) {
+                slot = days.get(day).firstSlotAtOrAfter(notBefore) - 1;
+                if (advanceWithinDay()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean advance() {
+            if (advanceWithinDay()) {
+                return true;
+            }
+            while (++day < days.size()) {
+                slot = -1;
+                if (advanceWithinDay()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean advanceWithinDay() {
+            SlotAvailability availability = days.get(day);
+            int next = slot + 1 < availability.slotCount() ? availability.nextFree(slot + 1) : -1;
+            if (next < 0) {
+                return false;
+            }
+            slot = next;
+            time = availability.slotTime(next);
+            return true;
+        }
+    }
+}
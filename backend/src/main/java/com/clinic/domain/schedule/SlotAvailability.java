@@ -0,0 +1,145 @@
+package com.clinic.domain.schedule;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Booked and free slots of one doctor on one day.
+ *
+ * Slots run from the clinic's opening time in steps of the doctor's interval until closing;
+ * bit {@code i} of a {@link BitSet} is set when slot {@code i} is booked, so checking or
+ * taking a slot is O(1) and listing free slots is a scan over a few words. Bookings that do
+ * not fall on a slot boundary (e.g. made before the interval changed) are kept in a small set
+ * so they still conflict with an exact re-booking.
+ */
+public class SlotAvailability {
+
+    private final Long doctorId;
+    private final Long clinicId;
+    private final LocalDate date;
+    private final LocalTime open;
+    private final int intervalMinutes;
+    private final int slotCount;
+    private final BitSet booked;
+    private final Set<LocalTime> offGrid = new HashSet<>();
+
+    public SlotAvailability(Long doctorId, Long clinicId, LocalDate date,
+                            LocalTime open, LocalTime close, int intervalMinutes) {
+        this.doctorId = doctorId;
+        this.clinicId = clinicId;
+        this.date = date;
+        this.open = open;
+        this.intervalMinutes = intervalMinutes;
+        long minutes = close.isAfter(open) ? ChronoUnit.MINUTES.between(open, close) : 0;
+        this.slotCount = (int) ((minutes + intervalMinutes - 1) / intervalMinutes);
+        this.booked = new BitSet(slotCount);
+    }
+
+    public Long getDoctorId() {
+        return doctorId;
+    }
+
+    public Long getClinicId() {
+        return clinicId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+
+    public int slotCount() {
+        return slotCount;
+    }
+
+    public LocalDateTime slotTime(int slot) {
+        return date.atTime(open).plusMinutes((long) slot * intervalMinutes);
+    }
+
+    public synchronized boolean isFree(LocalDateTime time) {
+        int slot = slotOf(time);
+        return slot >= 0 ? !booked.get(slot) : !offGrid.contains(time.toLocalTime());
+    }
+
+    /**
+     * Mark the time as booked; false, and nothing changed, if it already was.
+     */
+    public synchronized boolean claim(LocalDateTime time) {
+        int slot = slotOf(time);
+        if (slot < 0) {
+            return offGrid.add(time.toLocalTime());
+        }
+        if (booked.get(slot)) {
+            return false;
+        }
+        booked.set(slot);
+        return true;
+    }
+
+    public synchronized void release(LocalDateTime time) {
+        int slot = slotOf(time);
+        if (slot >= 0) {
+            booked.clear(slot);
+        } else {
+            offGrid.remove(time.toLocalTime());
+        }
+    }
+
+    /**
+     * The first free slot at or after {@code slot}, or -1 if none is left that day.
+     */
+    public synchronized int nextFree(int slot) {
+        int next = booked.nextClearBit(Math.max(slot, 0));
+        return next < slotCount ? next : -1;
+    }
+
+    /**
+     * Index of the first slot starting at or after {@code time}; {@link #slotCount()} if none does.
+     */
+    public int firstSlotAtOrAfter(LocalDateTime time) {
+        if (time.toLocalDate().isBefore(date)) {
+            return 0;
+        }
+        if (time.toLocalDate().isAfter(date)) {
+            return slotCount;
+        }
+        long nanos = ChronoUnit.NANOS.between(open, time.toLocalTime());
+        if (nanos <= 0) {
+            return 0;
+        }
+        long step = intervalMinutes * 60_000_000_000L;
+        return (int) Math.min((nanos + step - 1) / step, slotCount);
+    }
+
+    public synchronized List<LocalDateTime> freeSlots() {
+        List<LocalDateTime> slots = new ArrayList<>(slotCount - booked.cardinality());
+        for (int slot = booked.nextClearBit(0); slot < slotCount; slot = booked.nextClearBit(slot + 1)) {
+            slots.add(slotTime(slot));
+        }
+        return slots;
+    }
+
+    // index of the slot starting exactly at the time, or -1 when it is off the grid or out of hours
+    private int slotOf(LocalDateTime time) {
+        if (!time.toLocalDate().equals(date)) {
+            return -1;
+        }
+        long seconds = ChronoUnit.SECONDS.between(open, time.toLocalTime());
+        long step = intervalMinutes * 60L;
+        if (seconds < 0 || seconds % step != 0 || time.getNano() != 0) {
+            return -1;
+        }
+        long slot = seconds / step;
+        return slot < slotCount ? (int) slot : -1;
+    }
+}
@@ -2,24 +2,74 @@ package com.clinic.infrastructure.persistence;
 
 import com.clinic.domain.entity.Appointment;
 import com.clinic.domain.enums.AppointmentStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
-    boolean existsByDoctorIdAndDateTime(Long doctorId, LocalDateTime dateTime);
-    boolean existsByDoctorIdAndDateTimeAndIdNot(Long doctorId, LocalDateTime dateTime, Long id);
-
     List<Appointment> findByClinicId(Long clinicId);
     List<Appointment> findByClinicIdAndDateTimeBetween(Long clinicId, LocalDateTime start, LocalDateTime end);
 
     List<Appointment> findByPatientIdAndDateTimeBetween(Long patientId, LocalDateTime start, LocalDateTime end);
     List<Appointment> findByDoctorIdAndDateTimeBetween(Long doctorId, LocalDateTime start, LocalDateTime end);
+    List<Appointment> findByDoctorIdInAndDateTimeBetween(Collection<Long> doctorIds, LocalDateTime start, LocalDateTime end);
     List<Appointment> findByDateTimeBetween(LocalDateTime start, LocalDateTime end);
 
     long countByStatus(AppointmentStatus status);
 
     List<Appointment> findBySpecialistIdAndDateTimeBetween(Long specialistId, LocalDateTime start, LocalDateTime end);
-    List<Appointment> findBySpecialistId(Long specialistId);
+
+    // keyset pages ordered by (dateTime, id): rows after (afterTime, afterId) and before `to`,
+    // each a range scan on the matching (owner, date_time) index
+
+    @Query("""
+            select a from Appointment a
+             where a.clinicId = :clinicId
+               and a.dateTime >= :afterTime and a.dateTime < :to
+               and (a.dateTime > :afterTime or a.id > :afterId)
+             order by a.dateTime, a.id""")
+    List<Appointment> findClinicPage(@Param("clinicId") Long clinicId,
+                                     @Param("afterTime") LocalDateTime afterTime, @Param("afterId") long afterId,
+                                     @Param("to") LocalDateTime to, Limit limit);
+
+    @Query("""
+            select a from Appointment a
+             where a.patientId = :patientId
+               and a.dateTime >= :afterTime and a.dateTime < :to
+               and (a.dateTime > :afterTime or a.id > :afterId)
+             order by a.dateTime, a.id""")
+    List<Appointment> findPatientPage(@Param("patientId") Long patientId,
+                                      @Param("afterTime") LocalDateTime afterTime, @Param("afterId") long afterId,
+                                      @Param("to") LocalDateTime to, Limit limit);
+
+    @Query("""
+            select a from Appointment a
+             where a.doctorId = :doctorId
+               and a.dateTime >= :afterTime and a.dateTime < :to
+               and (a.dateTime > :afterTime or a.id > :afterId)
+             order by a.dateTime, a.id""")
+    List<Appointment> findDoctorPage(@Param("doctorId") Long doctorId,
+                                     @Param("afterTime") LocalDateTime afterTime, @Param("afterId") long afterId,
+                                     @Param("to") LocalDateTime to, Limit limit);
+
+    @Query("""
+            select a from Appointment a
+             where a.specialistId = :specialistId
+               and a.dateTime >= :afterTime and a.dateTime < :to
+               and (a.dateTime > :afterTime or a.id > :afterId)
+             order by a.dateTime, a.id""")
+    List<Appointment> findSpecialistPage(@Param("specialistId") Long specialistId,
+                                         @Param("afterTime") LocalDateTime afterTime, @Param("afterId") long afterId,
+                                         @Param("to") LocalDateTime to, Limit limit);
+
+    // bulk status change in one statement; loaded Appointment instances are not refreshed
+    @Modifying
+    @Query("update Appointment a set a.status = :status where a.id in :ids")
+    int updateStatusForIds(@Param("ids") Collection<Long> ids, @Param("status") AppointmentStatus status);
 }
@@ -2,8 +2,11 @@ package com.clinic.infrastructure.persistence;
 
 import com.clinic.domain.entity.DoctorProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,4 +15,10 @@ import java.util.UUID;
 public interface DoctorProfileRepository extends JpaRepository<DoctorProfile, Long> {
     Optional<DoctorProfile> findByUserId(UUID userId);
     List<DoctorProfile> findByClinicId(Long clinicId);
+
+    @Query("select p.id as id, p.fullName as fullName from DoctorProfile p where p.id in :ids")
+    List<ProfileName> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id as id, p.fullName as fullName, p.specialty as specialty from DoctorProfile p where p.clinicId = :clinicId")
+    List<DoctorSummary> findSummariesByClinicId(@Param("clinicId") Long clinicId);
 }
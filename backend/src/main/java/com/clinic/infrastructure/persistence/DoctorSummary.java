@@ -0,0 +1,10 @@
+package com.clinic.infrastructure.persistence;
+
+/**
+ * Id, name and specialty of a doctor profile, without loading the profile or its account.
+ */
+public interface DoctorSummary {
+    Long getId();
+    String getFullName();
+    String getSpecialty();
+}
@@ -2,12 +2,19 @@ package com.clinic.infrastructure.persistence;
 
 import com.clinic.domain.entity.PatientProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface PatientProfileRepository extends JpaRepository<PatientProfile, Long> {
     Optional<PatientProfile> findByUserId(UUID userId);
+
+    @Query("select p.id as id, p.fullName as fullName from PatientProfile p where p.id in :ids")
+    List<ProfileName> findNamesByIdIn(@Param("ids") Collection<Long> ids);
 }
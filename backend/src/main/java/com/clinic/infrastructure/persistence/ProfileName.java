@@ -0,0 +1,9 @@
+package com.clinic.infrastructure.persistence;
+
+/**
+ * Id and display name of a patient or doctor profile, without loading the profile or its account.
+ */
+public interface ProfileName {
+    Long getId();
+    String getFullName();
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,8 +15,9 @@ public interface QueueEntryRepository extends JpaRepository<QueueEntry, Long> {
 
     List<QueueEntry> findByQueueDate(LocalDate date);
     Optional<QueueEntry> findByAppointmentId(Long appointmentId);
+    List<QueueEntry> findByAppointmentIdIn(Collection<Long> appointmentIds);
 
-    // return 0 when no entries found
+    // return 0 when no entries found; seeds QueueNumberAllocator
     @Query("select coalesce(max(q.queueNumber), 0) from QueueEntry q where q.clinicId = :clinicId and q.queueDate = :date")
     int findMaxQueueNumber(@Param("clinicId") Long clinicId, @Param("date") LocalDate date);
 
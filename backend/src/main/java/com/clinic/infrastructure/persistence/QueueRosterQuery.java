@@ -0,0 +1,49 @@
+package com.clinic.infrastructure.persistence;
+
+import com.clinic.api.staff.dto.QueueEntrySummaryResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read model for the staff console's queue roster: a clinic day's entries with their
+ * appointment, patient and doctor names in one joined select.
+ *
+ * The entries are found through the (clinic_id, queue_date, queue_number) unique key, already
+ * in queue order, and every join is on a primary key, so the cost does not grow with the
+ * number of lookups per entry.
+ */
+@Repository
+public class QueueRosterQuery {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QueueRosterQuery(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<QueueEntrySummaryResponse> findRoster(Long clinicId, LocalDate date) {
+        return jdbcTemplate.query("""
+                SELECT q.queue_number, q.status, q.appointment_id,
+                       a.patient_id, a.doctor_id, p.full_name AS patient_name, d.full_name AS doctor_name
+                  FROM queue_entries q
+                  LEFT JOIN appointments a ON a.id = q.appointment_id
+                  LEFT JOIN patient_profiles p ON p.id = a.patient_id
+                  LEFT JOIN doctor_profiles d ON d.id = a.doctor_id
+                 WHERE q.clinic_id = ? AND q.queue_date = ?
+                 ORDER BY q.queue_number
+                """, (rs, row) -> {
+            QueueEntrySummaryResponse response = new QueueEntrySummaryResponse();
+            response.setQueueNumber(rs.getLong("queue_number"));
+            response.setStatus(rs.getString("status"));
+            response.setAppointmentId(rs.getObject("appointment_id", Long.class));
+            response.setPatientId(rs.getObject("patient_id", Long.class));
+            response.setDoctorId(rs.getObject("doctor_id", Long.class));
+            response.setPatientName(rs.getString("patient_name"));
+            response.setDoctorName(rs.getString("doctor_name"));
+            return response;
+        }, clinicId, date);
+    }
+}
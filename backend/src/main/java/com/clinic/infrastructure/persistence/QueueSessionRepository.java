@@ -5,9 +5,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface QueueSessionRepository extends JpaRepository<QueueSession, Long> {
     Optional<QueueSession> findByClinicIdAndQueueDate(Long clinicId, LocalDate queueDate);
+    List<QueueSession> findByQueueDate(LocalDate queueDate);
 }
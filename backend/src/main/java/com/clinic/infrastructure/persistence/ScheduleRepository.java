@@ -4,9 +4,12 @@ import com.clinic.domain.entity.Schedule;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ScheduleRepository extends JpaRepository<Schedule, Long> {
     Optional<Schedule> findByDoctorId(Long doctorId);
+    List<Schedule> findByDoctorIdIn(Collection<Long> doctorIds);
 }
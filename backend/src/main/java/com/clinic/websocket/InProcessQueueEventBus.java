@@ -0,0 +1,27 @@
+package com.clinic.websocket;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single-node bus: broadcasts are delivered straight back to this node's receivers.
+ */
+@Component
+@ConditionalOnProperty(name = "app.queue.bus.type", havingValue = "in-process", matchIfMissing = true)
+public class InProcessQueueEventBus implements QueueEventBus {
+
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(QueueBroadcast broadcast) {
+        receivers.forEach(receiver -> receiver.receive(broadcast, false));
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        receivers.add(receiver);
+    }
+}
@@ -0,0 +1,164 @@
+package com.clinic.websocket;
+
+import com.clinic.domain.enums.QueueStatus;
+import com.clinic.domain.queue.QueueChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-node bus backed by the shared database.
+ *
+ * Publishing inserts a row into {@code queue_broadcasts} and delivers locally at once; every
+ * node polls the table and delivers rows written by other nodes. Auto-increment ids can
+ * become visible out of order, so each poll also re-reads a short look-back window and skips
+ * ids it has already seen. Old rows are purged periodically.
+ */
+@Component
+@ConditionalOnProperty(name = "app.queue.bus.type", havingValue = "jdbc")
+public class JdbcQueueEventBus implements QueueEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcQueueEventBus.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+    private final int lookBackSeconds;
+    private final int retentionMinutes;
+    // ids delivered recently, oldest first; trimmed to what the look-back window can return
+    private final Map<Long, Long> seen = new LinkedHashMap<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("queue-bus-poller").daemon().factory());
+    private long lastId;
+
+    public JdbcQueueEventBus(JdbcTemplate jdbcTemplate,
+                             @Value("${app.queue.bus.poll-ms:200}") long pollMillis,
+                             @Value("${app.queue.bus.look-back-seconds:5}") int lookBackSeconds,
+                             @Value("${app.queue.bus.retention-minutes:10}") int retentionMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lookBackSeconds = lookBackSeconds;
+        this.retentionMinutes = retentionMinutes;
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM queue_broadcasts", Long.class);
+        this.lastId = maxId != null ? maxId : 0;
+        poller.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.MINUTES);
+        log.info("Queue event bus using queue_broadcasts, nodeId={}", nodeId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        poller.shutdownNow();
+    }
+
+    @Override
+    public void publish(QueueBroadcast broadcast) {
+        try {
+            jdbcTemplate.update("INSERT INTO queue_broadcasts (origin, clinic_id, payload) VALUES (?, ?, ?)",
+                    nodeId, broadcast.getClinicId(), toJson(broadcast));
+        } catch (RuntimeException ex) {
+            // other nodes miss this batch until the clinic's next change; this node still delivers
+            log.warn("Failed to relay queue broadcast for clinicId={}: {}", broadcast.getClinicId(), ex.getMessage());
+        }
+        receivers.forEach(receiver -> receiver.receive(broadcast, false));
+    }
+
+    @Override
+    public void subscribe(Receiver receiver) {
+        receivers.add(receiver);
+    }
+
+    private void poll() {
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                    SELECT id, origin, clinic_id, payload
+                      FROM queue_broadcasts
+                     WHERE id > ? OR created_at >= NOW(3) - INTERVAL ? SECOND
+                     ORDER BY id
+                    """, lastId, lookBackSeconds);
+            long now = System.currentTimeMillis();
+            for (Map<String, Object> row : rows) {
+                long id = ((Number) row.get("id")).longValue();
+                if (seen.putIfAbsent(id, now) != null) {
+                    continue;
+                }
+                lastId = Math.max(lastId, id);
+                if (nodeId.equals(row.get("origin"))) {
+                    continue;
+                }
+                QueueBroadcast broadcast = fromJson(((Number) row.get("clinic_id")).longValue(), (String) row.get("payload"));
+                receivers.forEach(receiver -> receiver.receive(broadcast, true));
+            }
+            long horizon = now - TimeUnit.SECONDS.toMillis(lookBackSeconds * 2L);
+            seen.values().removeIf(seenAt -> seenAt < horizon);
+        } catch (RuntimeException ex) {
+            log.warn("Queue bus poll failed: {}", ex.getMessage());
+        }
+    }
+
+    private void purge() {
+        try {
+            jdbcTemplate.update("DELETE FROM queue_broadcasts WHERE created_at < NOW(3) - INTERVAL ? MINUTE", retentionMinutes);
+        } catch (RuntimeException ex) {
+            log.warn("Queue bus purge failed: {}", ex.getMessage());
+        }
+    }
+
+    private String toJson(QueueBroadcast broadcast) {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("snapshot", broadcast.isSnapshot());
+        ArrayNode changes = root.putArray("changes");
+        for (QueueChange change : broadcast.getChanges()) {
+            ObjectNode node = changes.addObject();
+            node.put("op", change.getType().name().toLowerCase(Locale.ROOT));
+            node.put("queueNumber", change.getQueueNumber());
+            node.put("status", change.getStatus() != null ? change.getStatus().name() : null);
+            node.put("doctorId", change.getDoctorId());
+            node.put("patientName", change.getPatientName());
+            node.put("doctorName", change.getDoctorName());
+        }
+        return root.toString();
+    }
+
+    private QueueBroadcast fromJson(Long clinicId, String payload) {
+        JsonNode root;
+        try {
+            root = mapper.readTree(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Malformed queue broadcast payload", ex);
+        }
+        List<QueueChange> changes = new ArrayList<>();
+        for (JsonNode node : root.path("changes")) {
+            int number = node.path("queueNumber").asInt();
+            QueueStatus status = node.hasNonNull("status") ? QueueStatus.valueOf(node.get("status").asText()) : null;
+            switch (QueueChange.Type.valueOf(node.path("op").asText().toUpperCase(Locale.ROOT))) {
+                case ADDED -> changes.add(QueueChange.added(number, status,
+                        node.hasNonNull("doctorId") ? node.get("doctorId").asLong() : null,
+                        node.path("patientName").asText(null), node.path("doctorName").asText(null)));
+                case STATUS -> changes.add(QueueChange.statusChanged(number, status));
+                case REMOVED -> changes.add(QueueChange.removed(number));
+            }
+        }
+        return new QueueBroadcast(clinicId, changes, root.path("snapshot").asBoolean());
+    }
+}
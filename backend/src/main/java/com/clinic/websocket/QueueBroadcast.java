@@ -0,0 +1,25 @@
+package com.clinic.websocket;
+
+import com.clinic.domain.queue.QueueChange;
+
+import java.util.List;
+
+/**
+ * One published batch of committed queue changes for a clinic, as relayed between nodes.
+ */
+public class QueueBroadcast {
+
+    private final Long clinicId;
+    private final List<QueueChange> changes;
+    private final boolean snapshot;
+
+    public QueueBroadcast(Long clinicId, List<QueueChange> changes, boolean snapshot) {
+        this.clinicId = clinicId;
+        this.changes = List.copyOf(changes);
+        this.snapshot = snapshot;
+    }
+
+    public Long getClinicId() { return clinicId; }
+    public List<QueueChange> getChanges() { return changes; }
+    public boolean isSnapshot() { return snapshot; }
+}
@@ -0,0 +1,20 @@
+package com.clinic.websocket;
+
+/**
+ * Relays queue broadcasts to every backend node, including the one that published them.
+ * Each node then delivers to its own socket and stream subscribers only.
+ */
+public interface QueueEventBus {
+
+    void publish(QueueBroadcast broadcast);
+
+    void subscribe(Receiver receiver);
+
+    @FunctionalInterface
+    interface Receiver {
+        /**
+         * @param remote whether the broadcast was published by another node
+         */
+        void receive(QueueBroadcast broadcast, boolean remote);
+    }
+}
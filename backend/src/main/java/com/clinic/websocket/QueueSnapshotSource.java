@@ -0,0 +1,23 @@
+package com.clinic.websocket;
+
+import com.clinic.domain.queue.QueueChange;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Supplies the current visible queue of a clinic when a channel needs a baseline.
+ */
+public interface QueueSnapshotSource {
+
+    /**
+     * Today's waiting, fast-tracked and called entries of the clinic, each as an ADDED change.
+     */
+    List<QueueChange> loadActiveEntries(Long clinicId);
+
+    /**
+     * Estimated minutes until each of today's waiting entries of the clinic is called, by
+     * queue number, counting the entries ahead of each in call order.
+     */
+    Map<Integer, Integer> estimateWaitMinutes(Long clinicId);
+}
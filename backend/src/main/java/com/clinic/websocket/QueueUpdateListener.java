@@ -0,0 +1,13 @@
+package com.clinic.websocket;
+
+/**
+ * Told when a batch of committed queue changes for a clinic is delivered on this node,
+ * before it reaches the node's sockets.
+ */
+public interface QueueUpdateListener {
+
+    /**
+     * @param remote whether the changes were made on another node, so local state may be stale
+     */
+    void queueUpdated(Long clinicId, boolean remote);
+}
@@ -0,0 +1,179 @@
+package com.clinic.websocket;
+
+import com.clinic.domain.queue.QueueChange;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches queue updates per clinic before they reach the displays.
+ *
+ * Changes are only handed over once the surrounding transaction commits, so rolled-back
+ * work is never shown. The first change for a clinic opens a short window; everything that
+ * arrives for that clinic before it closes is merged per queue number and broadcast as a
+ * single delta, which caps broadcasts at one per window however fast staff click.
+ *
+ * Batches go out over the {@link QueueEventBus} so that every node, this one included,
+ * tells its {@link QueueUpdateListener}s and then its own socket subscribers.
+ */
+@Component
+public class QueueUpdatePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(QueueUpdatePublisher.class);
+
+    private final WebSocketHandler webSocketHandler;
+    private final QueueEventBus bus;
+    private final ObjectProvider<QueueUpdateListener> listeners;
+    private final long windowMillis;
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("queue-publisher").daemon().factory());
+
+    public QueueUpdatePublisher(WebSocketHandler webSocketHandler,
+                                QueueEventBus bus,
+                                ObjectProvider<QueueUpdateListener> listeners,
+                                @Value("${app.websocket.coalesce-window-ms:75}") long windowMillis) {
+        this.webSocketHandler = webSocketHandler;
+        this.bus = bus;
+        this.listeners = listeners;
+        this.windowMillis = windowMillis;
+        bus.subscribe(this::deliver);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void publish(Long clinicId, List<QueueChange> changes) {
+        if (clinicId == null || changes.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> enqueue(clinicId, changes, false));
+    }
+
+    /**
+     * Ask for a full snapshot to go out with the clinic's next batch.
+     */
+    public void publishSnapshot(Long clinicId) {
+        if (clinicId == null) {
+            return;
+        }
+        afterCommit(() -> enqueue(clinicId, List.of(), true));
+    }
+
+    /**
+     * Notify listeners of a change that displays do not show, such as pausing the queue.
+     */
+    public void publishStateChange(Long clinicId) {
+        if (clinicId == null) {
+            return;
+        }
+        afterCommit(() -> enqueue(clinicId, List.of(), false));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void enqueue(Long clinicId, List<QueueChange> changes, boolean snapshot) {
+        Pending batch = pending.computeIfAbsent(clinicId, id -> new Pending());
+        synchronized (batch) {
+            changes.forEach(batch::merge);
+            batch.snapshot |= snapshot;
+            if (!batch.scheduled) {
+                batch.scheduled = true;
+                scheduler.schedule(() -> flush(clinicId, batch), windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void flush(Long clinicId, Pending batch) {
+        List<QueueChange> changes;
+        boolean snapshot;
+        synchronized (batch) {
+            changes = new ArrayList<>(batch.changes.values());
+            snapshot = batch.snapshot;
+            batch.changes.clear();
+            batch.snapshot = false;
+            batch.scheduled = false;
+        }
+        try {
+            bus.publish(new QueueBroadcast(clinicId, changes, snapshot));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to publish queue update for clinicId={}: {}", clinicId, ex.getMessage());
+        }
+    }
+
+    private void deliver(QueueBroadcast broadcast, boolean remote) {
+        Long clinicId = broadcast.getClinicId();
+        // listeners first, so state made stale by another node is reloaded before sockets read it
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.queueUpdated(clinicId, remote);
+            } catch (RuntimeException ex) {
+                log.warn("Queue update listener failed for clinicId={}: {}", clinicId, ex.getMessage());
+            }
+        });
+        try {
+            webSocketHandler.sendQueueDelta(clinicId, broadcast.getChanges());
+            if (broadcast.isSnapshot()) {
+                webSocketHandler.sendQueueSnapshot(clinicId);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to deliver queue update for clinicId={}: {}", clinicId, ex.getMessage());
+        }
+    }
+
+    /**
+     * Changes collected for one clinic during the current window, at most one per queue number.
+     */
+    private static final class Pending {
+        private final Map<Integer, QueueChange> changes = new LinkedHashMap<>();
+        private boolean snapshot;
+        private boolean scheduled;
+
+        private void merge(QueueChange change) {
+            Integer number = change.getQueueNumber();
+            QueueChange previous = changes.get(number);
+            if (previous == null || change.getType() == QueueChange.Type.ADDED) {
+                changes.put(number, change);
+                return;
+            }
+            switch (change.getType()) {
+                case STATUS -> {
+                    if (previous.getType() == QueueChange.Type.ADDED) {
+                        changes.put(number, previous.withStatus(change.getStatus()));
+                    } else if (previous.getType() == QueueChange.Type.STATUS) {
+                        changes.put(number, change);
+                    }
+                }
+                // removing an entry the display never saw is a no-op, so removal always wins
+                default -> changes.put(number, change);
+            }
+        }
+    }
+}
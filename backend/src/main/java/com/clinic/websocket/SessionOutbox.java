@@ -0,0 +1,117 @@
+package com.clinic.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, ordered send queue for one socket.
+ *
+ * Callers only enqueue; a task on the fan-out executor does the actual writes, one at a
+ * time and in order. A session whose buffered payload exceeds the buffer limit, or whose
+ * current write has been stuck longer than the time limit, is closed and stops accepting
+ * messages, in the spirit of Spring's ConcurrentWebSocketSessionDecorator.
+ */
+class SessionOutbox {
+    private static final Logger log = LoggerFactory.getLogger(SessionOutbox.class);
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final long sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+
+    private final Queue<TextMessage> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile long sendStartedAt;
+    private volatile boolean closed;
+
+    SessionOutbox(WebSocketSession session, Executor executor, long sendTimeLimitMillis, int bufferSizeLimit) {
+        this.session = session;
+        this.executor = executor;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.bufferSizeLimit = bufferSizeLimit;
+    }
+
+    WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Queue a message without blocking. Returns false if the session is gone or was just evicted.
+     */
+    boolean send(TextMessage message) {
+        if (closed || !session.isOpen()) {
+            return false;
+        }
+        // payload length in chars is a close enough measure of buffered bytes
+        if (isStalled() || pendingSize.addAndGet(message.getPayload().length()) > bufferSizeLimit) {
+            log.warn("Evicting slow WebSocket sessionId={} pending={} stalled={}",
+                    session.getId(), pendingSize.get(), isStalled());
+            evict();
+            return false;
+        }
+        pending.add(message);
+        scheduleDrain();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            TextMessage next;
+            while (!closed && (next = pending.poll()) != null) {
+                pendingSize.addAndGet(-next.getPayload().length());
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    session.sendMessage(next);
+                } catch (IOException | RuntimeException ex) {
+                    log.warn("Failed to send ws message to sessionId={}: {}", session.getId(), ex.getMessage());
+                    evict();
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+        // a message may have been queued after the last poll but before the flag was cleared
+        if (!closed && !pending.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private boolean isStalled() {
+        long started = sendStartedAt;
+        return started != 0 && System.currentTimeMillis() - started > sendTimeLimitMillis;
+    }
+
+    private void evict() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.clear();
+        executor.execute(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ex) {
+                log.debug("Failed to close sessionId={}: {}", session.getId(), ex.getMessage());
+            }
+        });
+    }
+}
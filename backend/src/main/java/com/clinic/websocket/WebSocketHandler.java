@@ -1,81 +1,338 @@
 package com.clinic.websocket;
 
+import com.clinic.domain.enums.QueueStatus;
+import com.clinic.domain.queue.QueueChange;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Queue display socket. Clients pick a clinic either with {@code /ws?clinicId=N} or by
+ * sending {@code {"type":"subscribe","clinicId":N}}, and only receive that clinic's updates.
+ *
+ * Updates are versioned deltas ({@code queue_delta}) carrying a per-clinic sequence number
+ * that increases by one per message. A client that sees a gap sends
+ * {@code {"type":"resync"}} and gets a full {@code queue_update} with the current sequence;
+ * new subscribers get one straight away.
+ *
+ * Writes never happen on the caller's thread: each socket has a bounded {@link SessionOutbox}
+ * drained on virtual threads, and sockets that fall behind are closed rather than allowed
+ * to hold up the clinic.
+ */
 @Component
 public class WebSocketHandler extends TextWebSocketHandler {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketHandler.class);
-    private final Set<WebSocketSession> sessions = ConcurrentHashMap.newKeySet();
+    private static final String CLINIC_ATTRIBUTE = "clinicId";
+
+    private final Map<String, SessionOutbox> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, ClinicChannel> channels = new ConcurrentHashMap<>();
     private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectProvider<QueueSnapshotSource> snapshotSource;
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long sendTimeLimitMillis;
+    private final int sendBufferSizeLimit;
+
+    public WebSocketHandler(ObjectProvider<QueueSnapshotSource> snapshotSource,
+                            @Value("${app.websocket.send-time-limit-ms:5000}") long sendTimeLimitMillis,
+                            @Value("${app.websocket.send-buffer-size-limit:524288}") int sendBufferSizeLimit) {
+        this.snapshotSource = snapshotSource;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sendExecutor.shutdownNow();
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.add(session);
-        session.sendMessage(new TextMessage("{\"type\":\"connected\",\"message\":\"welcome\"}"));
-        log.info("WebSocket connected: sessionId={}, sessions={}", session.getId(), sessions.size());
+        SessionOutbox outbox = new SessionOutbox(session, sendExecutor, sendTimeLimitMillis, sendBufferSizeLimit);
+        sessions.put(session.getId(), outbox);
+        outbox.send(new TextMessage("{\"type\":\"connected\",\"message\":\"welcome\"}"));
+        Long clinicId = clinicIdFromQuery(session.getUri());
+        if (clinicId != null) {
+            subscribe(outbox, clinicId);
+        }
+        log.info("WebSocket connected: sessionId={}, clinicId={}, sessions={}", session.getId(), clinicId, sessions.size());
     }
 
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        String payload = message.getPayload();
-        session.sendMessage(new TextMessage("{\"type\":\"echo\",\"payload\":" + escapeForJson(payload) + "}"));
+        SessionOutbox outbox = sessions.get(session.getId());
+        if (outbox == null) {
+            return;
+        }
+        JsonNode request;
+        try {
+            request = mapper.readTree(message.getPayload());
+        } catch (IOException ex) {
+            sendError(outbox, "Malformed message");
+            return;
+        }
+        String type = request.path("type").asText("");
+        switch (type) {
+            case "subscribe" -> {
+                if (!request.path("clinicId").canConvertToLong()) {
+                    sendError(outbox, "clinicId is required");
+                    return;
+                }
+                subscribe(outbox, request.get("clinicId").asLong());
+            }
+            case "unsubscribe" -> unsubscribe(outbox);
+            case "resync" -> {
+                Long clinicId = (Long) session.getAttributes().get(CLINIC_ATTRIBUTE);
+                if (clinicId == null) {
+                    sendError(outbox, "Subscribe to a clinic before requesting a resync");
+                    return;
+                }
+                outbox.send(snapshotMessage(clinicId, channel(clinicId)));
+            }
+            default -> sendError(outbox, "Unsupported message type: " + type);
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        sessions.remove(session);
+        SessionOutbox outbox = sessions.remove(session.getId());
+        if (outbox != null) {
+            unsubscribe(outbox);
+        }
     }
 
     /**
-     * Broadcast a queue update JSON to all connected websocket clients.
+     * Send the clinic's queue changes to its subscribers as one sequenced delta.
      */
-    public void sendQueueUpdate(Long clinicId, int total, Map<String, Object> next, List<Map<String, Object>> queue) {
-        try {
+    public void sendQueueDelta(Long clinicId, List<QueueChange> changes) {
+        if (clinicId == null || changes.isEmpty()) {
+            return;
+        }
+        ClinicChannel channel = channel(clinicId);
+        synchronized (channel) {
+            channel.seq++;
+            channel.snapshot = null;
+            if (channel.subscribers.isEmpty()) {
+                // nobody is watching; the next subscriber loads a fresh baseline
+                return;
+            }
+            // applying is idempotent, so a baseline that already holds these changes is fine
+            ensureLoaded(clinicId, channel);
+            changes.forEach(channel::apply);
+
             ObjectNode root = mapper.createObjectNode();
-            root.put("type", "queue_update");
-            if (clinicId != null) root.put("clinicId", clinicId);
-            root.put("total", total);
-            if (next != null) root.set("next", mapper.valueToTree(next));
-            if (queue != null) root.set("queue", mapper.valueToTree(queue));
-            String payload = root.toString();
-            log.debug("Broadcasting queue_update for clinicId={} total={} sessions={}", clinicId, total, sessions.size());
-            sendMessageToAll(payload);
-        } catch (Exception ex) {
-            log.warn("Failed to prepare queue_update payload: {}", ex.getMessage());
+            root.put("type", "queue_delta");
+            root.put("clinicId", clinicId);
+            root.put("seq", channel.seq);
+            ArrayNode items = root.putArray("changes");
+            changes.forEach(change -> writeChange(items.addObject(), change));
+            log.debug("Sending queue_delta for clinicId={} changes={} subscribers={}",
+                    clinicId, changes.size(), channel.subscribers.size());
+            // queued under the channel lock so subscribers see sequence numbers in order;
+            // the writes themselves happen on the send executor
+            sendMessageTo(channel.subscribers, new TextMessage(root.toString()));
+        }
+    }
+
+    /**
+     * Reload the clinic's baseline and send it as a full snapshot to every subscriber.
+     *
+     * Used after changes that bypass deltas (a bulk sweep, a session start), so the cached
+     * entries are dropped rather than trusted and the snapshot gets its own sequence number.
+     */
+    public void sendQueueSnapshot(Long clinicId) {
+        if (clinicId == null) {
+            return;
+        }
+        ClinicChannel channel = channel(clinicId);
+        synchronized (channel) {
+            channel.seq++;
+            channel.entries.clear();
+            channel.snapshot = null;
+            channel.loadedFor = null;
+            if (channel.subscribers.isEmpty()) {
+                return;
+            }
+            sendMessageTo(channel.subscribers, snapshotMessage(clinicId, channel));
         }
     }
 
     public void sendMessageToAll(String text) {
-        TextMessage msg = new TextMessage(text);
-        sessions.forEach(s -> {
-            if (s.isOpen()) {
-                try {
-                    s.sendMessage(msg);
-                } catch (IOException ex) {
-                    log.warn("Failed to send ws message to sessionId={}: {}", s.getId(), ex.getMessage());
-                }
+        sendMessageTo(sessions.values(), new TextMessage(text));
+    }
+
+    private void sendMessageTo(Collection<SessionOutbox> targets, TextMessage msg) {
+        targets.forEach(outbox -> {
+            if (!outbox.send(msg)) {
+                // closed or evicted; afterConnectionClosed finishes the cleanup
+                unsubscribe(outbox);
             }
         });
     }
 
-    private String escapeForJson(String s) {
-        if (s == null) return "\"\"";
-        s = s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r");
-        return "\"" + s + "\"";
+    /**
+     * The channel's current snapshot, serialized once per queue change and shared by every
+     * subscriber, resync and reconnect until the next change.
+     */
+    private TextMessage snapshotMessage(Long clinicId, ClinicChannel channel) {
+        synchronized (channel) {
+            ensureLoaded(clinicId, channel);
+            if (channel.snapshot != null) {
+                return channel.snapshot;
+            }
+
+            ObjectNode root = mapper.createObjectNode();
+            root.put("type", "queue_update");
+            root.put("clinicId", clinicId);
+            root.put("seq", channel.seq);
+            root.put("total", channel.entries.size());
+            if (channel.entries.isEmpty()) {
+                root.putNull("next");
+            } else {
+                writeEntry(root.putObject("next"), channel.entries.firstEntry().getValue());
+            }
+            ArrayNode queue = root.putArray("queue");
+            // same "ahead" as a patient's numbersAway: waiting entries called before them
+            Map<Integer, Integer> estimates = snapshotSource.getObject().estimateWaitMinutes(clinicId);
+            for (QueueChange entry : channel.entries.values()) {
+                ObjectNode node = queue.addObject();
+                writeEntry(node, entry);
+                Integer estimate = estimates.get(entry.getQueueNumber());
+                if (entry.getStatus() != QueueStatus.CALLED && estimate != null) {
+                    node.put("estimatedWaitMinutes", estimate);
+                }
+            }
+            channel.snapshot = new TextMessage(root.toString());
+            return channel.snapshot;
+        }
+    }
+
+    /**
+     * Load today's baseline if the channel has none yet (or only yesterday's).
+     */
+    private void ensureLoaded(Long clinicId, ClinicChannel channel) {
+        LocalDate today = LocalDate.now();
+        if (today.equals(channel.loadedFor)) {
+            return;
+        }
+        channel.entries.clear();
+        channel.snapshot = null;
+        snapshotSource.getObject().loadActiveEntries(clinicId).forEach(channel::apply);
+        channel.loadedFor = today;
+    }
+
+    private void writeChange(ObjectNode node, QueueChange change) {
+        node.put("op", change.getType().name().toLowerCase(Locale.ROOT));
+        if (change.getType() == QueueChange.Type.ADDED) {
+            writeEntry(node, change);
+        } else {
+            node.put("queueNumber", change.getQueueNumber());
+            if (change.getStatus() != null) node.put("status", change.getStatus().name());
+        }
+    }
+
+    private void writeEntry(ObjectNode node, QueueChange entry) {
+        node.put("queueNumber", entry.getQueueNumber());
+        node.put("status", entry.getStatus() != null ? entry.getStatus().name() : null);
+        node.put("patientName", entry.getPatientName());
+        node.put("doctorName", entry.getDoctorName());
+    }
+
+    private ClinicChannel channel(Long clinicId) {
+        return channels.computeIfAbsent(clinicId, id -> new ClinicChannel());
+    }
+
+    private void subscribe(SessionOutbox outbox, Long clinicId) {
+        unsubscribe(outbox);
+        outbox.getSession().getAttributes().put(CLINIC_ATTRIBUTE, clinicId);
+        ClinicChannel channel = channel(clinicId);
+        synchronized (channel) {
+            channel.subscribers.add(outbox);
+            outbox.send(new TextMessage("{\"type\":\"subscribed\",\"clinicId\":" + clinicId + "}"));
+            // under the lock so no delta can slip in ahead of the baseline
+            outbox.send(snapshotMessage(clinicId, channel));
+        }
+    }
+
+    private void unsubscribe(SessionOutbox outbox) {
+        Object clinicId = outbox.getSession().getAttributes().remove(CLINIC_ATTRIBUTE);
+        if (clinicId == null) {
+            return;
+        }
+        ClinicChannel channel = channel((Long) clinicId);
+        synchronized (channel) {
+            channel.subscribers.remove(outbox);
+            if (channel.subscribers.isEmpty()) {
+                // stop tracking entries nobody is watching
+                channel.entries.clear();
+                channel.snapshot = null;
+                channel.loadedFor = null;
+            }
+        }
+    }
+
+    private Long clinicIdFromQuery(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        String value = UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst(CLINIC_ATTRIBUTE);
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private void sendError(SessionOutbox outbox, String message) {
+        ObjectNode error = mapper.createObjectNode();
+        error.put("type", "error");
+        error.put("message", message);
+        outbox.send(new TextMessage(error.toString()));
+    }
+
+    /**
+     * Subscribers, sequence and visible entries of one clinic. The sequence keeps counting
+     * while nobody is subscribed so that it never goes backwards for a client.
+     */
+    private static final class ClinicChannel {
+        private final Set<SessionOutbox> subscribers = ConcurrentHashMap.newKeySet();
+        private final TreeMap<Integer, QueueChange> entries = new TreeMap<>();
+        private long seq;
+        private LocalDate loadedFor;
+        private TextMessage snapshot;
+
+        private void apply(QueueChange change) {
+            switch (change.getType()) {
+                case ADDED -> entries.put(change.getQueueNumber(), change);
+                case STATUS -> entries.computeIfPresent(change.getQueueNumber(),
+                        (number, entry) -> entry.withStatus(change.getStatus()));
+                case REMOVED -> entries.remove(change.getQueueNumber());
+            }
+        }
     }
 }
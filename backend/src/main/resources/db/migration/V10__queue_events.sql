@@ -0,0 +1,18 @@
+-- V10: Append-only history of queue entry transitions (check-in, call, serve, skip, ...).
+-- Rows are never updated; QueueEventLog.replay folds them in id order back into a clinic's
+-- queue for a day, using the doctor, priority class and row version that V20 adds.
+
+CREATE TABLE IF NOT EXISTS queue_events (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    clinic_id BIGINT NOT NULL,
+    queue_date DATE NOT NULL,
+    queue_entry_id BIGINT NOT NULL,
+    queue_number INT NOT NULL,
+    appointment_id BIGINT,
+    patient_id BIGINT,
+    from_status VARCHAR(20),
+    to_status VARCHAR(20) NOT NULL,
+    actor VARCHAR(255) NOT NULL,
+    occurred_at DATETIME(3) NOT NULL,
+    INDEX idx_queue_events_clinic_date (clinic_id, queue_date, id)
+);
@@ -0,0 +1,8 @@
+-- V11: Record when each queue entry was checked in, called and served, for wait-time estimates.
+
+ALTER TABLE queue_entries
+  ADD COLUMN checked_in_at DATETIME(3) NULL AFTER patient_id,
+  ADD COLUMN called_at DATETIME(3) NULL AFTER checked_in_at,
+  ADD COLUMN served_at DATETIME(3) NULL AFTER called_at;
+
+UPDATE queue_entries SET checked_in_at = created_at WHERE checked_in_at IS NULL;
@@ -0,0 +1,11 @@
+-- V12: Short-lived relay of queue broadcasts between backend nodes (app.queue.bus.type=jdbc).
+-- Rows are purged after a few minutes.
+
+CREATE TABLE IF NOT EXISTS queue_broadcasts (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    origin VARCHAR(64) NOT NULL,
+    clinic_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_queue_broadcasts_created (created_at)
+);
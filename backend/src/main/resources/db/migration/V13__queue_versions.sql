@@ -0,0 +1,7 @@
+-- V13: Optimistic locking versions for queue rows, so concurrent updates cannot silently overwrite each other.
+
+ALTER TABLE queue_entries
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE queue_sessions
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
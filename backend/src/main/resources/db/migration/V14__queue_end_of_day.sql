@@ -0,0 +1,22 @@
+-- V14: End-of-day queue sweep. Closed sessions get a summary row; scheduler_locks lets only
+-- one backend node run a scheduled job at a time.
+
+CREATE TABLE IF NOT EXISTS queue_day_summaries (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    clinic_id BIGINT NOT NULL,
+    queue_date DATE NOT NULL,
+    total_entries INT NOT NULL,
+    served INT NOT NULL,
+    cancelled INT NOT NULL,
+    skipped INT NOT NULL,
+    swept_no_shows INT NOT NULL,
+    closed_at DATETIME(3) NOT NULL,
+    CONSTRAINT uq_queue_day_summary UNIQUE (clinic_id, queue_date),
+    CONSTRAINT fk_queue_day_summary_clinic FOREIGN KEY (clinic_id) REFERENCES clinics(id)
+);
+
+CREATE TABLE IF NOT EXISTS scheduler_locks (
+    name VARCHAR(64) PRIMARY KEY,
+    locked_until DATETIME(3) NOT NULL,
+    locked_by VARCHAR(64) NOT NULL
+);
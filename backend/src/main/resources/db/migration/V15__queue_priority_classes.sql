@@ -0,0 +1,5 @@
+-- V15: Priority class per queue entry (e.g. urgent, elderly). NULL means regular; the head
+-- start of each class is configuration, not data.
+
+ALTER TABLE queue_entries
+    ADD COLUMN priority_class VARCHAR(20) NULL AFTER status;
@@ -0,0 +1,7 @@
+-- V16: Composite indexes for appointment listings by clinic, patient and specialist over a
+-- time range. InnoDB appends the primary key, so (owner, date_time) also serves the
+-- (date_time, id) keyset order. (doctor_id, date_time) already exists from V1.
+
+CREATE INDEX idx_appointment_clinic_datetime ON appointments (clinic_id, date_time);
+CREATE INDEX idx_appointment_patient_datetime ON appointments (patient_id, date_time);
+CREATE INDEX idx_appointment_specialist_datetime ON appointments (specialist_id, date_time);
@@ -0,0 +1,10 @@
+-- V17: At most one booking per doctor and time that is not cancelled. MySQL has no partial
+-- indexes, so the key is on a generated column that is NULL for cancelled rows; NULLs never
+-- collide in a unique index. Existing duplicates must be cancelled before this runs:
+--   SELECT doctor_id, date_time, COUNT(*) FROM appointments
+--   WHERE status <> 'CANCELLED' GROUP BY doctor_id, date_time HAVING COUNT(*) > 1;
+
+ALTER TABLE appointments
+    ADD COLUMN active_doctor_id BIGINT
+        GENERATED ALWAYS AS (CASE WHEN status <> 'CANCELLED' THEN doctor_id END) STORED,
+    ADD CONSTRAINT uq_appointment_active_doctor_slot UNIQUE (active_doctor_id, date_time);
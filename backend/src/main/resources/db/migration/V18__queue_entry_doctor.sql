@@ -0,0 +1,9 @@
+-- V18: The appointment's doctor on each queue entry, so served consultations and wait
+-- estimates can be attributed to a doctor without reading the appointment.
+
+ALTER TABLE queue_entries
+  ADD COLUMN doctor_id BIGINT NULL AFTER patient_id;
+
+UPDATE queue_entries q
+  JOIN appointments a ON a.id = q.appointment_id
+   SET q.doctor_id = a.doctor_id;
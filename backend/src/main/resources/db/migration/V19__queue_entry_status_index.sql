@@ -0,0 +1,4 @@
+-- V19: Lets the end-of-day sweep find clinic days with entries left open but no session
+-- without scanning every queue entry ever issued; only a day's leftovers match.
+
+CREATE INDEX idx_queue_entry_status_date ON queue_entries (status, queue_date, clinic_id);
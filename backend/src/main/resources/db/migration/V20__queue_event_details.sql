@@ -0,0 +1,8 @@
+-- V20: Each queue event also carries the entry's doctor, priority class and row version after
+-- the transition, so replaying the log rebuilds entries that can be saved like loaded ones.
+-- Events logged before this have NULLs; replay reads them as regular and version 0.
+
+ALTER TABLE queue_events
+    ADD COLUMN doctor_id BIGINT NULL AFTER patient_id,
+    ADD COLUMN priority_class VARCHAR(20) NULL AFTER to_status,
+    ADD COLUMN entry_version BIGINT NULL AFTER priority_class;
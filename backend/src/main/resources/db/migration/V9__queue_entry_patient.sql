@@ -0,0 +1,14 @@
+-- V9: Store the patient on queue entries so queue positions can be looked up per patient
+-- without going through appointments.
+
+ALTER TABLE queue_entries
+  ADD COLUMN patient_id BIGINT NULL AFTER appointment_id;
+
+UPDATE queue_entries q
+  JOIN appointments a ON a.id = q.appointment_id
+   SET q.patient_id = a.patient_id
+ WHERE q.patient_id IS NULL;
+
+ALTER TABLE queue_entries
+  ADD CONSTRAINT fk_queue_patient FOREIGN KEY (patient_id) REFERENCES patient_profiles(id),
+  ADD INDEX idx_queue_patient_date (patient_id, queue_date);
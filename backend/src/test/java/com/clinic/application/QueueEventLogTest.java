@@ -0,0 +1,162 @@
+package com.clinic.application;
+
+import com.clinic.domain.entity.QueueEntry;
+import com.clinic.domain.enums.QueueStatus;
+import com.clinic.domain.queue.Queue;
+import com.clinic.domain.queue.QueuePriorities;
+import com.clinic.infrastructure.persistence.QueueSessionRepository;
+import jakarta.persistence.EntityManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueueEventLogTest {
+
+    private static final Long CLINIC_ID = 4L;
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 6);
+    private static final LocalDateTime OPENING = TODAY.atTime(9, 0);
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private JdbcTemplate jdbcTemplate;
+    private QueueEventLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(h2);
+        // V10 plus V20; the MySQL migrations do not run on H2
+        jdbcTemplate.execute("""
+                CREATE TABLE queue_events (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    clinic_id BIGINT NOT NULL,
+                    queue_date DATE NOT NULL,
+                    queue_entry_id BIGINT NOT NULL,
+                    queue_number INT NOT NULL,
+                    appointment_id BIGINT,
+                    patient_id BIGINT,
+                    doctor_id BIGINT,
+                    from_status VARCHAR(20),
+                    to_status VARCHAR(20) NOT NULL,
+                    priority_class VARCHAR(20),
+                    entry_version BIGINT,
+                    actor VARCHAR(255) NOT NULL,
+                    occurred_at TIMESTAMP(3) NOT NULL
+                )
+                """);
+        QueueSessionRepository sessions = mock(QueueSessionRepository.class);
+        when(sessions.findByClinicIdAndQueueDate(any(), any())).thenReturn(Optional.empty());
+        eventLog = new QueueEventLog(jdbcTemplate, entityManager, sessions, QueuePriorities.parse("urgent:120"));
+    }
+
+    @Test
+    void replayRebuildsStatusPriorityTimesAndVersions() {
+        QueueEntry first = checkIn(1, 11L, OPENING);
+        QueueEntry second = checkIn(2, 12L, OPENING.plusMinutes(5));
+        QueueEntry third = checkIn(3, 11L, OPENING.plusMinutes(20));
+
+        third.setPriorityClass("urgent");
+        third.setVersion(1L);
+        eventLog.record(third, QueueStatus.WAITING);
+        change(third, QueueStatus.CALLED, 2L, OPENING.plusMinutes(25));
+        change(third, QueueStatus.SERVED, 3L, OPENING.plusMinutes(40));
+        change(first, QueueStatus.CALLED, 1L, OPENING.plusMinutes(41));
+
+        Queue queue = eventLog.replay(CLINIC_ID, TODAY);
+
+        QueueEntry served = queue.findEntry(3).orElseThrow();
+        assertThat(served.getId()).isEqualTo(103L);
+        assertThat(served.getStatus()).isEqualTo(QueueStatus.SERVED);
+        assertThat(served.getPriorityClass()).isEqualTo("urgent");
+        assertThat(served.getDoctorId()).isEqualTo(11L);
+        assertThat(served.getVersion()).isEqualTo(3L);
+        assertThat(served.getCheckedInAt()).isEqualTo(third.getCheckedInAt());
+        assertThat(served.getCalledAt()).isEqualTo(OPENING.plusMinutes(25));
+        assertThat(served.getServedAt()).isEqualTo(OPENING.plusMinutes(40));
+
+        QueueEntry called = queue.findEntry(1).orElseThrow();
+        assertThat(called.getStatus()).isEqualTo(QueueStatus.CALLED);
+        assertThat(called.getVersion()).isEqualTo(1L);
+        assertThat(queue.findEntry(2).orElseThrow().getVersion()).isZero();
+        assertThat(queue.peekNext().getQueueNumber()).isEqualTo(second.getQueueNumber());
+        assertThat(queue.currentNumber()).isEqualTo(3);
+    }
+
+    @Test
+    void eventsInATransactionAreWrittenBeforeCommitWithTheFlushedVersion() {
+        QueueEntry entry = entry(1, 11L, OPENING);
+        entry.setVersion(0L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            entry.setStatus(QueueStatus.CALLED);
+            eventLog.record(entry, QueueStatus.WAITING);
+            assertThat(count()).isZero();
+
+            // the flush is what moves the row version on
+            doAnswer(invocation -> {
+                entry.setVersion(1L);
+                return null;
+            }).when(entityManager).flush();
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(count()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT entry_version FROM queue_events", Long.class)).isEqualTo(1L);
+        assertThat(TransactionSynchronizationManager.getResource(eventLog)).isNull();
+    }
+
+    private QueueEntry checkIn(int queueNumber, Long doctorId, LocalDateTime at) {
+        QueueEntry entry = entry(queueNumber, doctorId, at);
+        entry.setVersion(0L);
+        eventLog.record(entry, null);
+        return entry;
+    }
+
+    private void change(QueueEntry entry, QueueStatus status, long version, LocalDateTime at) {
+        QueueStatus from = entry.getStatus();
+        entry.setStatus(status);
+        if (status == QueueStatus.CALLED) {
+            entry.setCalledAt(at);
+        } else if (status == QueueStatus.SERVED) {
+            entry.setServedAt(at);
+        }
+        entry.setVersion(version);
+        eventLog.record(entry, from);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM queue_events", Integer.class);
+    }
+
+    private static QueueEntry entry(int queueNumber, Long doctorId, LocalDateTime checkedInAt) {
+        QueueEntry entry = new QueueEntry();
+        entry.setId(100L + queueNumber);
+        entry.setClinicId(CLINIC_ID);
+        entry.setQueueDate(TODAY);
+        entry.setQueueNumber(queueNumber);
+        entry.setAppointmentId(200L + queueNumber);
+        entry.setPatientId(300L + queueNumber);
+        entry.setDoctorId(doctorId);
+        entry.setCheckedInAt(checkedInAt);
+        entry.setStatus(QueueStatus.WAITING);
+        return entry;
+    }
+}
@@ -0,0 +1,123 @@
+package com.clinic.application;
+
+import com.clinic.infrastructure.persistence.QueueEntryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueueNumberAllocatorTest {
+
+    private static final Long CLINIC_ID = 7L;
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 6);
+    private static final int THREADS = 16;
+    private static final int CALLS_PER_THREAD = 2_000;
+
+    private final QueueEntryRepository repository = mock(QueueEntryRepository.class);
+    private final QueueNumberAllocator allocator = new QueueNumberAllocator(repository);
+
+    @Test
+    void concurrentAllocationsAreUniqueAndGapFree() throws Exception {
+        when(repository.findMaxQueueNumber(CLINIC_ID, TODAY)).thenReturn(41);
+
+        ConcurrentLinkedQueue<Integer> issued = new ConcurrentLinkedQueue<>();
+        runConcurrently(() -> {
+            for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                // mix single check-ins with the block reservations of a bulk check-in
+                if (ThreadLocalRandom.current().nextBoolean()) {
+                    issued.add(allocator.next(CLINIC_ID, TODAY));
+                } else {
+                    int count = 1 + ThreadLocalRandom.current().nextInt(5);
+                    int first = allocator.nextBlock(CLINIC_ID, TODAY, count);
+                    for (int number = first; number < first + count; number++) {
+                        issued.add(number);
+                    }
+                }
+            }
+        });
+
+        List<Integer> sorted = issued.stream().sorted().toList();
+        assertThat(sorted).doesNotHaveDuplicates();
+        assertThat(sorted.get(0)).isEqualTo(42);
+        assertThat(sorted.get(sorted.size() - 1)).isEqualTo(41 + sorted.size());
+        // seeded once however many threads raced for the first number
+        verify(repository, times(1)).findMaxQueueNumber(CLINIC_ID, TODAY);
+    }
+
+    @Test
+    void reseedAfterCollisionContinuesAfterStoredMaximum() {
+        when(repository.findMaxQueueNumber(CLINIC_ID, TODAY)).thenReturn(3, 10);
+
+        assertThat(allocator.next(CLINIC_ID, TODAY)).isEqualTo(4);
+        // another node stored numbers up to 10; the insert of 5 hits the unique key and the caller reseeds
+        assertThat(allocator.next(CLINIC_ID, TODAY)).isEqualTo(5);
+        allocator.reseed(CLINIC_ID, TODAY);
+
+        assertThat(allocator.next(CLINIC_ID, TODAY)).isEqualTo(11);
+        assertThat(allocator.nextBlock(CLINIC_ID, TODAY, 3)).isEqualTo(12);
+        assertThat(allocator.next(CLINIC_ID, TODAY)).isEqualTo(15);
+        verify(repository, times(2)).findMaxQueueNumber(CLINIC_ID, TODAY);
+    }
+
+    @Test
+    void remoteUpdateReseedsOnlyThatClinic() {
+        LocalDate today = LocalDate.now();
+        when(repository.findMaxQueueNumber(eq(CLINIC_ID), any())).thenReturn(0, 20);
+        when(repository.findMaxQueueNumber(eq(8L), any())).thenReturn(0);
+
+        assertThat(allocator.next(CLINIC_ID, today)).isEqualTo(1);
+        assertThat(allocator.next(8L, today)).isEqualTo(1);
+        allocator.queueUpdated(CLINIC_ID, false);
+        assertThat(allocator.next(CLINIC_ID, today)).isEqualTo(2);
+
+        allocator.queueUpdated(CLINIC_ID, true);
+        assertThat(allocator.next(CLINIC_ID, today)).isEqualTo(21);
+        assertThat(allocator.next(8L, today)).isEqualTo(2);
+    }
+
+    @Test
+    void eachDayHasItsOwnSequence() {
+        LocalDate tomorrow = TODAY.plusDays(1);
+        when(repository.findMaxQueueNumber(CLINIC_ID, TODAY)).thenReturn(30);
+        when(repository.findMaxQueueNumber(CLINIC_ID, tomorrow)).thenReturn(0);
+
+        assertThat(allocator.next(CLINIC_ID, TODAY)).isEqualTo(31);
+        assertThat(allocator.next(CLINIC_ID, tomorrow)).isEqualTo(1);
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
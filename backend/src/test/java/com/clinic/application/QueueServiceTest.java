@@ -0,0 +1,236 @@
+package com.clinic.application;
+
+import com.clinic.api.staff.dto.AppointmentResponse;
+import com.clinic.domain.entity.Appointment;
+import com.clinic.domain.entity.QueueEntry;
+import com.clinic.domain.entity.QueueSession;
+import com.clinic.domain.enums.QueueStatus;
+import com.clinic.domain.queue.Queue;
+import com.clinic.domain.queue.QueuePriorities;
+import com.clinic.infrastructure.persistence.AppointmentRepository;
+import com.clinic.infrastructure.persistence.QueueEntryRepository;
+import com.clinic.infrastructure.persistence.QueueRosterQuery;
+import com.clinic.infrastructure.persistence.QueueSessionRepository;
+import com.clinic.websocket.QueueUpdatePublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueueServiceTest {
+
+    private static final Long CLINIC_ID = 6L;
+    private static final int CALL_NEXT_ATTEMPTS = 3;
+
+    private final LocalDate today = LocalDate.now();
+    private final QueueEntryRepository queueEntryRepository = mock(QueueEntryRepository.class);
+    private final QueueSessionRepository queueSessionRepository = mock(QueueSessionRepository.class);
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+
+    // stands in for queue_entries by queue number; a save succeeds only against the version it read
+    private final Map<Integer, QueueEntry> rows = new ConcurrentHashMap<>();
+    // saves still to fail as if another writer had committed first
+    private final AtomicInteger conflicts = new AtomicInteger();
+
+    private QueueRegistry queueRegistry;
+    private QueueService queueService;
+
+    @BeforeEach
+    void setUp() {
+        QueueSession session = new QueueSession();
+        session.setClinicId(CLINIC_ID);
+        session.setQueueDate(today);
+        session.start();
+        when(queueSessionRepository.findByClinicIdAndQueueDate(CLINIC_ID, today)).thenReturn(Optional.of(session));
+        when(queueEntryRepository.findByClinicIdAndQueueDateOrderByQueueNumberAsc(CLINIC_ID, today))
+                .thenAnswer(invocation -> rows.values().stream()
+                        .sorted(Comparator.comparingInt(QueueEntry::getQueueNumber))
+                        .map(QueueEntry::copy)
+                        .toList());
+        when(queueEntryRepository.save(any(QueueEntry.class))).thenAnswer(invocation -> save(invocation.getArgument(0)));
+        when(appointmentRepository.findById(any())).thenAnswer(invocation -> Optional.of(appointment(invocation.getArgument(0))));
+
+        QueuePriorities priorities = QueuePriorities.parse("urgent:120");
+        queueRegistry = new QueueRegistry(queueEntryRepository, queueSessionRepository, priorities);
+        queueService = new QueueService(queueEntryRepository, queueSessionRepository, appointmentRepository,
+                mock(QueueNotificationDispatcher.class), mock(MedicalRecordService.class), mock(NameResolver.class),
+                mock(SlotAvailabilityIndex.class), mock(QueueUpdatePublisher.class), queueRegistry,
+                mock(QueueNumberAllocator.class), mock(QueueEventLog.class), mock(WaitTimeEstimator.class),
+                new IdempotentRequests(600), new TransactionTemplate(new SynchronizingTransactionManager()),
+                mock(JdbcTemplate.class), mock(QueueRosterQuery.class), priorities, CALL_NEXT_ATTEMPTS);
+    }
+
+    @Test
+    void concurrentCallsCallDistinctPatients() throws Exception {
+        checkIn(20);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Long> called = new ArrayList<>();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<AppointmentResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return queueService.callNext(CLINIC_ID);
+                }));
+            }
+            start.countDown();
+            for (Future<AppointmentResponse> future : futures) {
+                called.add(future.get().getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the first eight in call order, each once
+        assertThat(called).containsExactlyInAnyOrder(201L, 202L, 203L, 204L, 205L, 206L, 207L, 208L);
+        assertThat(rows.values()).filteredOn(row -> row.getStatus() == QueueStatus.CALLED).hasSize(callers);
+        Queue queue = queueRegistry.get(CLINIC_ID, today);
+        assertThat(queue.waitingCount()).isEqualTo(20 - callers);
+        assertThat(queue.currentNumber()).isEqualTo(callers);
+        assertThat(queue.peekNext().getQueueNumber()).isEqualTo(9);
+    }
+
+    @Test
+    void versionConflictReloadsTheQueueAndCallsTheNextPatient() {
+        checkIn(3);
+        queueRegistry.get(CLINIC_ID, today);
+        // another node calls number 1; this node's resident queue still has it waiting
+        QueueEntry row = rows.get(1);
+        row.updateStatus(QueueStatus.CALLED);
+        row.setVersion(row.getVersion() + 1);
+
+        AppointmentResponse response = queueService.callNext(CLINIC_ID);
+
+        assertThat(response.getId()).isEqualTo(202L);
+        verify(queueEntryRepository, times(2)).findByClinicIdAndQueueDateOrderByQueueNumberAsc(CLINIC_ID, today);
+        Queue queue = queueRegistry.get(CLINIC_ID, today);
+        assertThat(queue.findEntry(1).orElseThrow().getStatus()).isEqualTo(QueueStatus.CALLED);
+        assertThat(queue.findEntry(2).orElseThrow().getStatus()).isEqualTo(QueueStatus.CALLED);
+        assertThat(queue.peekNext().getQueueNumber()).isEqualTo(3);
+    }
+
+    @Test
+    void conflictsOnEveryAttemptEndInConflictAndReleaseTheClaim() {
+        checkIn(2);
+        conflicts.set(CALL_NEXT_ATTEMPTS);
+
+        assertThatThrownBy(() -> queueService.callNext(CLINIC_ID))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        verify(queueEntryRepository, times(CALL_NEXT_ATTEMPTS)).save(any(QueueEntry.class));
+        Queue queue = queueRegistry.get(CLINIC_ID, today);
+        assertThat(queue.isClaimed(1)).isFalse();
+        assertThat(queue.findEntry(1).orElseThrow().getStatus()).isEqualTo(QueueStatus.WAITING);
+        // nothing was called, so the next request gets the same patient
+        assertThat(queueService.callNext(CLINIC_ID).getId()).isEqualTo(201L);
+    }
+
+    @Test
+    void repeatedIdempotencyKeyReturnsTheFirstCall() {
+        checkIn(3);
+
+        AppointmentResponse first = queueService.callNext(CLINIC_ID, "key-1");
+        AppointmentResponse repeated = queueService.callNext(CLINIC_ID, "key-1");
+        AppointmentResponse other = queueService.callNext(CLINIC_ID, "key-2");
+
+        assertThat(repeated).isSameAs(first);
+        assertThat(first.getId()).isEqualTo(201L);
+        assertThat(other.getId()).isEqualTo(202L);
+        verify(queueEntryRepository, times(2)).save(any(QueueEntry.class));
+        assertThat(queueRegistry.get(CLINIC_ID, today).waitingCount()).isEqualTo(1);
+    }
+
+    private void checkIn(int count) {
+        for (int number = 1; number <= count; number++) {
+            QueueEntry entry = new QueueEntry();
+            entry.setId(100L + number);
+            entry.setClinicId(CLINIC_ID);
+            entry.setQueueDate(today);
+            entry.setQueueNumber(number);
+            entry.setAppointmentId(200L + number);
+            entry.setPatientId(300L + number);
+            entry.setDoctorId(11L);
+            entry.setCheckedInAt(today.atTime(9, 0).plusMinutes(number));
+            entry.setStatus(QueueStatus.WAITING);
+            entry.setVersion(0L);
+            rows.put(number, entry);
+        }
+    }
+
+    // like a save with @Version: bumps the version, or fails if the row moved on since it was read
+    private QueueEntry save(QueueEntry entry) {
+        if (conflicts.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            throw new ObjectOptimisticLockingFailureException(QueueEntry.class, entry.getId());
+        }
+        QueueEntry saved = rows.compute(entry.getQueueNumber(), (number, row) -> {
+            if (!row.getVersion().equals(entry.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(QueueEntry.class, entry.getId());
+            }
+            QueueEntry updated = entry.copy();
+            updated.setVersion(row.getVersion() + 1);
+            return updated;
+        });
+        return saved.copy();
+    }
+
+    private Appointment appointment(Long id) {
+        Appointment appointment = new Appointment();
+        appointment.setId(id);
+        appointment.setClinicId(CLINIC_ID);
+        appointment.setPatientId(id + 100);
+        appointment.setDoctorId(11L);
+        appointment.setDateTime(today.atTime(9, 0));
+        return appointment;
+    }
+
+    // no resources, but begins, commits and rolls back with the synchronizations a real one runs
+    private static class SynchronizingTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.clinic.application;
+
+import com.clinic.domain.entity.Appointment;
+import com.clinic.domain.entity.DoctorProfile;
+import com.clinic.domain.enums.AppointmentStatus;
+import com.clinic.infrastructure.persistence.AppointmentRepository;
+import com.clinic.infrastructure.persistence.ClinicRepository;
+import com.clinic.infrastructure.persistence.DoctorProfileRepository;
+import com.clinic.infrastructure.persistence.ScheduleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SlotAvailabilityIndexTest {
+
+    private static final Long DOCTOR_ID = 7L;
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+    private static final LocalDateTime TEN = DAY.atTime(10, 0);
+
+    private final AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+    // stands in for the committed bookings the day is loaded from
+    private final List<Appointment> committed = new ArrayList<>();
+    private SlotAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        DoctorProfileRepository doctors = mock(DoctorProfileRepository.class);
+        DoctorProfile doctor = new DoctorProfile();
+        doctor.setId(DOCTOR_ID);
+        when(doctors.findById(DOCTOR_ID)).thenReturn(Optional.of(doctor));
+        ScheduleRepository schedules = mock(ScheduleRepository.class);
+        when(schedules.findByDoctorId(DOCTOR_ID)).thenReturn(Optional.empty());
+        when(appointmentRepository.findByDoctorIdAndDateTimeBetween(eq(DOCTOR_ID), any(), any()))
+                .thenAnswer(invocation -> List.copyOf(committed));
+        index = new SlotAvailabilityIndex(doctors, mock(ClinicRepository.class), schedules, appointmentRepository, 60);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void reloadedDayKeepsClaimsOfUnfinishedTransactions() {
+        index.claim(DOCTOR_ID, TEN);
+        List<TransactionSynchronization> booking = List.copyOf(TransactionSynchronizationManager.getSynchronizations());
+
+        // the day is replaced before the booking commits, so the database does not show it yet
+        index.evictDay(DOCTOR_ID, DAY);
+        assertThat(index.get(DOCTOR_ID, DAY).isFree(TEN)).isFalse();
+        assertThatThrownBy(() -> index.claim(DOCTOR_ID, TEN)).isInstanceOf(ResponseStatusException.class);
+
+        committed.add(appointment(TEN));
+        booking.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertThat(index.get(DOCTOR_ID, DAY).isFree(TEN)).isFalse();
+        index.evictDay(DOCTOR_ID, DAY);
+        assertThat(index.get(DOCTOR_ID, DAY).isFree(TEN)).isFalse();
+    }
+
+    @Test
+    void rolledBackClaimIsGivenBackEvenAfterAReload() {
+        index.claim(DOCTOR_ID, TEN);
+        List<TransactionSynchronization> booking = List.copyOf(TransactionSynchronizationManager.getSynchronizations());
+        index.evictDay(DOCTOR_ID, DAY);
+        index.get(DOCTOR_ID, DAY);
+
+        booking.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(index.get(DOCTOR_ID, DAY).isFree(TEN)).isTrue();
+        index.evictDay(DOCTOR_ID, DAY);
+        assertThat(index.get(DOCTOR_ID, DAY).isFree(TEN)).isTrue();
+    }
+
+    private static Appointment appointment(LocalDateTime time) {
+        Appointment appointment = new Appointment();
+        appointment.setId(1L);
+        appointment.setDoctorId(DOCTOR_ID);
+        appointment.setDateTime(time);
+        appointment.setStatus(AppointmentStatus.SCHEDULED);
+        return appointment;
+    }
+}
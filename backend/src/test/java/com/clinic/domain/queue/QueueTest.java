@@ -0,0 +1,261 @@
+package com.clinic.domain.queue;
+
+import com.clinic.domain.entity.QueueEntry;
+import com.clinic.domain.enums.QueueStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueueTest {
+
+    private static final Long CLINIC_ID = 3L;
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 6);
+    private static final int CHECK_IN_THREADS = 8;
+    private static final int CALL_THREADS = 8;
+    private static final int CHECK_INS_PER_THREAD = 5_000;
+    private static final long[] DOCTOR_IDS = {11L, 12L, 13L, 14L};
+    private static final String[] PRIORITY_CLASSES = {QueuePriorities.REGULAR, "urgent", "elderly"};
+
+    private static final QueuePriorities PRIORITIES = QueuePriorities.parse("urgent:120,elderly:15");
+
+    private final Queue queue = Queue.createOrMerge(CLINIC_ID, TODAY, null, List.of(), PRIORITIES);
+
+    // stands in for queue_entries: a commit succeeds only against the version it read
+    private final Map<Integer, Long> rowVersions = new ConcurrentHashMap<>();
+
+    @Test
+    void concurrentCheckInsAndCallsNeverCallAnEntryTwice() throws Exception {
+        queue.start();
+        AtomicInteger numbers = new AtomicInteger();
+        AtomicInteger producersLeft = new AtomicInteger(CHECK_IN_THREADS);
+        AtomicBoolean stop = new AtomicBoolean();
+        ConcurrentLinkedQueue<Integer> called = new ConcurrentLinkedQueue<>();
+        List<Runnable> tasks = new ArrayList<>();
+
+        for (int t = 0; t < CHECK_IN_THREADS; t++) {
+            tasks.add(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < CHECK_INS_PER_THREAD; i++) {
+                    QueueEntry entry = entry(numbers.incrementAndGet(),
+                            DOCTOR_IDS[random.nextInt(DOCTOR_IDS.length)],
+                            PRIORITY_CLASSES[random.nextInt(PRIORITY_CLASSES.length)]);
+                    rowVersions.put(entry.getQueueNumber(), entry.getVersion());
+                    queue.apply(entry);
+                    if (random.nextInt(20) == 0) {
+                        // as QueueService.fastTrack: a copy, saved only if nobody changed the row since
+                        QueueEntry copy = queue.findEntry(entry.getQueueNumber()).orElseThrow();
+                        if (copy.isWaiting() && !queue.isClaimed(copy.getQueueNumber())) {
+                            copy.fastTrack();
+                            commit(copy);
+                        }
+                    }
+                }
+                producersLeft.decrementAndGet();
+            });
+        }
+        for (int t = 0; t < CALL_THREADS; t++) {
+            tasks.add(() -> {
+                while (true) {
+                    QueueEntry next = queue.claimNext();
+                    if (next == null) {
+                        if (producersLeft.get() == 0 && queue.waitingCount() == 0) {
+                            return;
+                        }
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    // as QueueService.callNext: commit the call, then release the claim either way
+                    next.updateStatus(QueueStatus.CALLED);
+                    boolean committed = commit(next);
+                    queue.release(next.getQueueNumber());
+                    if (committed) {
+                        called.add(next.getQueueNumber());
+                        next.updateStatus(QueueStatus.SERVED);
+                        assertThat(commit(next)).isTrue();
+                    }
+                }
+            });
+        }
+        // checks the counts against the entries while both sides are running
+        tasks.add(() -> {
+            while (!stop.get()) {
+                synchronized (queue) {
+                    assertCountsMatchEntries();
+                }
+            }
+        });
+
+        runConcurrently(tasks, tasks.size() - 1, stop);
+
+        int total = CHECK_IN_THREADS * CHECK_INS_PER_THREAD;
+        assertThat(called).hasSize(total).doesNotHaveDuplicates();
+        assertThat(queue.waitingCount()).isZero();
+        assertThat(queue.activeEntries()).isEmpty();
+        assertThat(queue.peekNext()).isNull();
+        assertThat(queue.currentNumber()).isEqualTo(total);
+    }
+
+    @Test
+    void countsFollowStatusChanges() {
+        QueueEntry first = entry(1, 11L, QueuePriorities.REGULAR);
+        QueueEntry second = entry(2, 12L, QueuePriorities.REGULAR);
+        QueueEntry third = entry(3, 11L, QueuePriorities.REGULAR);
+        queue.apply(first);
+        queue.apply(second);
+        queue.apply(third);
+
+        assertThat(queue.countAhead(3)).isEqualTo(2);
+        assertThat(queue.countAheadForDoctor(3)).isEqualTo(1);
+        assertThat(queue.countAheadForDoctor(2)).isZero();
+        assertThat(queue.currentNumber()).isZero();
+
+        QueueEntry called = queue.claimNext();
+        assertThat(called.getQueueNumber()).isEqualTo(1);
+        // claimed but not yet committed: hidden from other callers, invisible to readers
+        assertThat(queue.peekNext().getQueueNumber()).isEqualTo(2);
+        assertThat(queue.currentNumber()).isZero();
+        called.updateStatus(QueueStatus.CALLED);
+        called.setVersion(1L);
+        queue.apply(called);
+        queue.release(1);
+        // the called patient is no longer ahead of anyone
+        assertThat(queue.countAhead(3)).isEqualTo(1);
+        assertThat(queue.countAhead(1)).isZero();
+        assertThat(queue.currentNumber()).isEqualTo(1);
+        assertThat(queue.waitingCount()).isEqualTo(2);
+
+        // a late apply of the state the call replaced is ignored
+        queue.apply(first);
+        assertThat(queue.findEntry(1).orElseThrow().getStatus()).isEqualTo(QueueStatus.CALLED);
+
+        called.updateStatus(QueueStatus.SERVED);
+        called.setVersion(2L);
+        queue.apply(called);
+        second.updateStatus(QueueStatus.SKIPPED);
+        second.setVersion(1L);
+        queue.apply(second);
+        assertThat(queue.countAhead(3)).isZero();
+        assertThat(queue.countAheadForDoctor(3)).isZero();
+        assertThat(queue.waitingCount()).isEqualTo(1);
+        assertThat(queue.currentNumber()).isEqualTo(1);
+    }
+
+    @Test
+    void countsAheadFollowCallOrderNotQueueNumbers() {
+        LocalDateTime opening = TODAY.atTime(9, 0);
+        queue.apply(entry(1, 11L, QueuePriorities.REGULAR, opening));
+        queue.apply(entry(2, 12L, QueuePriorities.REGULAR, opening.plusMinutes(5)));
+        queue.apply(entry(3, 11L, QueuePriorities.REGULAR, opening.plusMinutes(10)));
+        // urgent patients get a two-hour head start, so this one goes first despite the last number
+        queue.apply(entry(4, 11L, "urgent", opening.plusMinutes(20)));
+        // elderly patients get 15 minutes: ahead of number 3 but not of number 2
+        queue.apply(entry(5, 12L, "elderly", opening.plusMinutes(22)));
+
+        assertThat(queue.countAhead(4)).isZero();
+        assertThat(queue.countAhead(1)).isEqualTo(1);
+        assertThat(queue.countAhead(2)).isEqualTo(2);
+        assertThat(queue.countAhead(5)).isEqualTo(3);
+        assertThat(queue.countAhead(3)).isEqualTo(4);
+
+        assertThat(queue.countAheadForDoctor(4)).isZero();
+        assertThat(queue.countAheadForDoctor(1)).isEqualTo(1);
+        assertThat(queue.countAheadForDoctor(3)).isEqualTo(2);
+        assertThat(queue.countAheadForDoctor(2)).isZero();
+        assertThat(queue.countAheadForDoctor(5)).isEqualTo(1);
+        assertThat(queue.peekWaiting(3).getQueueNumber()).isEqualTo(5);
+        assertThat(queue.waitingInCallOrder()).containsExactly(
+                new Queue.Ahead(4, 11L, 0, 0),
+                new Queue.Ahead(1, 11L, 1, 1),
+                new Queue.Ahead(2, 12L, 2, 0),
+                new Queue.Ahead(5, 12L, 3, 1),
+                new Queue.Ahead(3, 11L, 4, 2));
+    }
+
+    // caller holds the queue's lock, so the entries and counts are read at one point in time
+    private void assertCountsMatchEntries() {
+        List<QueueEntry> waiting = queue.activeEntries().stream().filter(QueueEntry::isWaiting).toList();
+        assertThat(queue.waitingCount()).isEqualTo(waiting.size());
+        if (waiting.isEmpty()) {
+            return;
+        }
+        Comparator<QueueEntry> callOrder = PRIORITIES.callOrder();
+        QueueEntry probe = waiting.get(waiting.size() / 2);
+        long ahead = waiting.stream().filter(e -> callOrder.compare(e, probe) < 0).count();
+        long aheadForDoctor = waiting.stream()
+                .filter(e -> callOrder.compare(e, probe) < 0 && e.getDoctorId().equals(probe.getDoctorId()))
+                .count();
+        assertThat(queue.countAhead(probe.getQueueNumber())).isEqualTo((int) ahead);
+        assertThat(queue.countAheadForDoctor(probe.getQueueNumber())).isEqualTo((int) aheadForDoctor);
+    }
+
+    private static QueueEntry entry(int queueNumber, Long doctorId, String priorityClass) {
+        return entry(queueNumber, doctorId, priorityClass, LocalDateTime.now());
+    }
+
+    private static QueueEntry entry(int queueNumber, Long doctorId, String priorityClass, LocalDateTime checkedInAt) {
+        QueueEntry entry = new QueueEntry();
+        entry.setClinicId(CLINIC_ID);
+        entry.setQueueDate(TODAY);
+        entry.setQueueNumber(queueNumber);
+        entry.setPatientId((long) queueNumber);
+        entry.setDoctorId(doctorId);
+        entry.setPriorityClass(priorityClass);
+        entry.setCheckedInAt(checkedInAt);
+        entry.setStatus(QueueStatus.WAITING);
+        entry.setVersion(0L);
+        return entry;
+    }
+
+    // optimistic save of the copy: bumps its version and applies it, or fails like a stale row
+    private boolean commit(QueueEntry copy) {
+        long read = copy.getVersion();
+        if (!rowVersions.replace(copy.getQueueNumber(), read, read + 1)) {
+            return false;
+        }
+        copy.setVersion(read + 1);
+        queue.apply(copy);
+        return true;
+    }
+
+    // runs the first {@code workers} tasks to completion, then stops the rest through {@code stop}
+    private static void runConcurrently(List<Runnable> tasks, int workers, AtomicBoolean stop) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < workers; i++) {
+                futures.get(i).get();
+            }
+            stop.set(true);
+            for (int i = workers; i < futures.size(); i++) {
+                futures.get(i).get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.clinic.infrastructure.persistence;
+
+import com.clinic.api.staff.dto.QueueEntrySummaryResponse;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueueRosterQueryTest {
+
+    private static final Long CLINIC_ID = 5L;
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 6);
+    private static final Set<String> STATEMENT_METHODS = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private JdbcTemplate jdbcTemplate;
+    private QueueRosterQuery rosterQuery;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(h2);
+        // only the columns the roster reads; the MySQL migrations do not run on H2
+        jdbcTemplate.execute("""
+                CREATE TABLE patient_profiles (id BIGINT PRIMARY KEY, full_name VARCHAR(255));
+                CREATE TABLE doctor_profiles (id BIGINT PRIMARY KEY, full_name VARCHAR(255));
+                CREATE TABLE appointments (id BIGINT PRIMARY KEY, patient_id BIGINT, doctor_id BIGINT);
+                CREATE TABLE queue_entries (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    clinic_id BIGINT NOT NULL,
+                    queue_date DATE NOT NULL,
+                    queue_number INT NOT NULL,
+                    status VARCHAR(20) NOT NULL,
+                    appointment_id BIGINT,
+                    UNIQUE (clinic_id, queue_date, queue_number)
+                );
+                INSERT INTO doctor_profiles VALUES (1, 'Dr Tan'), (2, 'Dr Lim');
+                """);
+        rosterQuery = new QueueRosterQuery(new JdbcTemplate(new CountingDataSource(h2, statements)));
+    }
+
+    @Test
+    void rosterIsOneStatementWhateverTheQueueLength() {
+        for (int length : new int[] {1, 10, 500}) {
+            jdbcTemplate.update("DELETE FROM queue_entries");
+            seed(length);
+
+            statements.set(0);
+            List<QueueEntrySummaryResponse> roster = rosterQuery.findRoster(CLINIC_ID, TODAY);
+
+            assertThat(roster).hasSize(length);
+            assertThat(statements.get()).as("statements for %d entries", length).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void rosterJoinsNamesInQueueOrder() {
+        seed(3);
+        jdbcTemplate.update("INSERT INTO queue_entries (clinic_id, queue_date, queue_number, status) VALUES (?, ?, 4, 'WAITING')",
+                CLINIC_ID, TODAY);
+        jdbcTemplate.update("INSERT INTO queue_entries (clinic_id, queue_date, queue_number, status) VALUES (?, ?, 1, 'WAITING')",
+                CLINIC_ID + 1, TODAY);
+
+        List<QueueEntrySummaryResponse> roster = rosterQuery.findRoster(CLINIC_ID, TODAY);
+
+        assertThat(roster).extracting(QueueEntrySummaryResponse::getQueueNumber).containsExactly(1L, 2L, 3L, 4L);
+        QueueEntrySummaryResponse second = roster.get(1);
+        assertThat(second.getAppointmentId()).isEqualTo(2L);
+        assertThat(second.getPatientId()).isEqualTo(2L);
+        assertThat(second.getPatientName()).isEqualTo("Patient 2");
+        assertThat(second.getDoctorId()).isEqualTo(1L);
+        assertThat(second.getDoctorName()).isEqualTo("Dr Tan");
+        // a walk-in without an appointment still appears, without names
+        assertThat(roster.get(3).getAppointmentId()).isNull();
+        assertThat(roster.get(3).getPatientName()).isNull();
+    }
+
+    private void seed(int length) {
+        for (int i = 1; i <= length; i++) {
+            jdbcTemplate.update("MERGE INTO patient_profiles KEY (id) VALUES (?, ?)", i, "Patient " + i);
+            jdbcTemplate.update("MERGE INTO appointments KEY (id) VALUES (?, ?, ?)", i, i, 1 + i % 2);
+            jdbcTemplate.update("""
+                    INSERT INTO queue_entries (clinic_id, queue_date, queue_number, status, appointment_id)
+                    VALUES (?, ?, ?, 'WAITING', ?)
+                    """, CLINIC_ID, TODAY, i, i);
+        }
+    }
+
+    // counts the statements opened on any connection it hands out
+    private static class CountingDataSource extends DelegatingDataSource {
+
+        private final AtomicInteger statements;
+
+        CountingDataSource(JdbcDataSource target, AtomicInteger statements) {
+            super(target);
+            this.statements = statements;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                    (proxy, method, args) -> {
+                        if (STATEMENT_METHODS.contains(method.getName())) {
+                            statements.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getTargetException();
+                        }
+                    });
+        }
+    }
+}
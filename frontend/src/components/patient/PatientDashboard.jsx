@@ -1,5 +1,5 @@
 ﻿/* eslint-disable no-unused-vars */
-import { useEffect, useMemo, useState } from 'react';
+import { useCallback, useEffect, useMemo, useState } from 'react';
 import { Link } from 'react-router-dom';
 import {
   AlertCircle,
@@ -35,6 +35,21 @@ import { Table, TableBody, TableCell, TableHead, TableHeader, TableRow } from '.
 import { RadioGroup, RadioGroupItem } from '../ui/radio-group';
 import { cn } from '../../lib/utils';
 
+// YYYY-MM-DD in local time, as the appointment endpoints take dates
+const localDateParam = (date = new Date()) => {
+  const adjusted = new Date(date.getTime() - date.getTimezoneOffset() * 60000);
+  return adjusted.toISOString().slice(0, 10);
+};
+
+const shiftDays = (dateParam, days) => {
+  const date = new Date(`${dateParam}T00:00:00`);
+  date.setDate(date.getDate() + days);
+  return localDateParam(date);
+};
+
+// past visits load this many days at a time, the most recent first
+const PAST_WINDOW_DAYS = 90;
+
 export default function PatientDashboard({ patientId, userName }) {
   const { show } = useToast();
   const [specialists, setSpecialists] = useState([]);
@@ -42,6 +57,9 @@ export default function PatientDashboard({ patientId, userName }) {
   const [selectionType, setSelectionType] = useState('clinic');
   const [activeTab, setActiveTab] = useState('overview');
   const [appointments, setAppointments] = useState([]);
+  // start of the past visits loaded so far
+  const [pastFrom, setPastFrom] = useState(() => shiftDays(localDateParam(), -PAST_WINDOW_DAYS));
+  const [loadingEarlier, setLoadingEarlier] = useState(false);
   const [clinics, setClinics] = useState([]);
   const [doctors, setDoctors] = useState([]);
   const [selectedClinic, setSelectedClinic] = useState('');
@@ -65,17 +83,32 @@ export default function PatientDashboard({ patientId, userName }) {
   // 'clinic' or 'specialist' mode for reschedule form
   const [rescheduleSelectionType, setRescheduleSelectionType] = useState('clinic');
 
+  // Appointments from today on plus past ones back to `from`, both ranges filtered on the
+  // server, so the patient's whole history is never fetched at once.
+  const fetchAppointments = useCallback(
+    async (from) => {
+      const today = localDateParam();
+      const [upcomingRes, pastRes] = await Promise.all([
+        appointmentAPI.listForPatient(patientId, today),
+        appointmentAPI.listForPatient(patientId, from, shiftDays(today, -1)),
+      ]);
+      return [...(pastRes.data || []), ...(upcomingRes.data || [])];
+    },
+    [patientId]
+  );
+
   useEffect(() => {
     const loadInitialData = async () => {
       try {
-        const [apptRes, clinicRes, doctorRes, recordsRes, specialistRes] = await Promise.all([
-          appointmentAPI.listForPatient(patientId),
+        const from = shiftDays(localDateParam(), -PAST_WINDOW_DAYS);
+        setPastFrom(from);
+        const [appointmentsData, clinicRes, doctorRes, recordsRes, specialistRes] = await Promise.all([
+          fetchAppointments(from),
           clinicAPI.getAll(),
           doctorAPI.getAll(),
           patientAPI.medicalRecords(patientId),
           specialistAPI.getAll(),
         ]);
-        const appointmentsData = apptRes.data || [];
 
         // Mark appointments as NO_SHOW if > 3 hours past appointment time
         const now = new Date();
@@ -102,8 +135,7 @@ export default function PatientDashboard({ patientId, userName }) {
         if (updatePromises.length > 0) {
           await Promise.all(updatePromises);
           // Re-fetch appointments to get updated statuses
-          const updatedRes = await appointmentAPI.listForPatient(patientId);
-          setAppointments(updatedRes.data || []);
+          setAppointments(await fetchAppointments(from));
         } else {
           setAppointments(appointmentsData);
         }
@@ -142,7 +174,22 @@ export default function PatientDashboard({ patientId, userName }) {
     if (patientId) {
       loadInitialData();
     }
-  }, [patientId, show]);
+  }, [fetchAppointments, patientId, show]);
+
+  // live queue updates while checked in, instead of polling queue-status
+  useEffect(() => {
+    if (!patientId || !checkedInAppointmentId) return undefined;
+    const source = new EventSource(queueAPI.patientStatusStreamUrl(patientId));
+    source.addEventListener('queue-status', (ev) => {
+      try {
+        setQueueStatus(JSON.parse(ev.data));
+      } catch {
+        // ignore malformed events; the next change resends the full status
+      }
+    });
+    source.addEventListener('not-queued', () => setQueueStatus(null));
+    return () => source.close();
+  }, [patientId, checkedInAppointmentId]);
 
   const filteredDoctors = useMemo(() => {
     if (!selectedClinic) return doctors;
@@ -155,8 +202,7 @@ export default function PatientDashboard({ patientId, userName }) {
 
   const refreshAppointments = async () => {
     try {
-      const res = await appointmentAPI.listForPatient(patientId);
-      const appointmentsData = res.data || [];
+      const appointmentsData = await fetchAppointments(pastFrom);
       setAppointments(appointmentsData);
 
       // Check if there's a checked-in appointment
@@ -182,6 +228,20 @@ export default function PatientDashboard({ patientId, userName }) {
     }
   };
 
+  const loadEarlierAppointments = async () => {
+    const from = shiftDays(pastFrom, -PAST_WINDOW_DAYS);
+    setLoadingEarlier(true);
+    try {
+      const res = await appointmentAPI.listForPatient(patientId, from, shiftDays(pastFrom, -1));
+      setAppointments((current) => [...(res.data || []), ...current]);
+      setPastFrom(from);
+    } catch (error) {
+      show(error?.userMessage || 'Unable to load earlier appointments.', 'error');
+    } finally {
+      setLoadingEarlier(false);
+    }
+  };
+
   useEffect(() => {
     const loadSlots = async () => {
       // Two modes: clinic-based availability (existing) OR specialist-based availability (new)
@@ -1402,7 +1462,9 @@ export default function PatientDashboard({ patientId, userName }) {
             <Card>
               <CardHeader>
                 <CardTitle>Past Appointments</CardTitle>
-                <CardDescription>Total: {pastAppointments.length} completed visits</CardDescription>
+                <CardDescription>
+                  Total: {pastAppointments.length} completed visits since {pastFrom}
+                </CardDescription>
               </CardHeader>
               <CardContent>
                 {pastAppointments.length > 0 ? (
@@ -1465,6 +1527,16 @@ export default function PatientDashboard({ patientId, userName }) {
                     <p className="text-sm text-slate-600">No appointment history available</p>
                   </div>
                 )}
+                <div className="mt-4 flex justify-center">
+                  <Button
+                    variant="outline"
+                    size="sm"
+                    onClick={loadEarlierAppointments}
+                    disabled={loadingEarlier}
+                  >
+                    {loadingEarlier ? 'Loading...' : 'Show earlier visits'}
+                  </Button>
+                </div>
               </CardContent>
             </Card>
           </div>
@@ -1571,6 +1643,11 @@ export default function PatientDashboard({ patientId, userName }) {
                                 ? '—'
                                 : queueStatus.numbersAway ?? '—'}
                             </p>
+                            {queueStatus.status === 'WAITING' || queueStatus.status === 'FAST_TRACKED' ? (
+                              <p className="text-xs text-slate-500 mt-2">
+                                About {queueStatus.estimatedWaitMinutes ?? '—'} min wait
+                              </p>
+                            ) : null}
                           </div>
                           <div className="rounded-xl border border-slate-200 bg-white p-6 shadow-sm">
                             <p className="text-xs uppercase tracking-wide text-slate-500 mb-2">
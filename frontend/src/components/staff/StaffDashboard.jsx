@@ -32,10 +32,25 @@ import { Alert, AlertDescription, AlertTitle } from '../ui/alert';
 import { Table, TableBody, TableCell, TableHead, TableHeader, TableRow } from '../ui/table';
 import { cn } from '../../lib/utils';
 
+// YYYY-MM-DD in local time, as the appointment endpoints take dates
+const localDateParam = (date = new Date()) => {
+  const adjusted = new Date(date.getTime() - date.getTimezoneOffset() * 60000);
+  return adjusted.toISOString().slice(0, 10);
+};
+
+// one copy per appointment, the one fetched last
+const mergeAppointments = (current, fetched) => {
+  const byId = new Map(current.map((appointment) => [appointment.id, appointment]));
+  fetched.forEach((appointment) => byId.set(appointment.id, appointment));
+  return [...byId.values()];
+};
+
 export default function StaffDashboard({ clinicId, staffProfileId, doctorProfileId, staffName }) {
   const { show } = useToast();
   const [activeTab, setActiveTab] = useState('overview');
   const [appointments, setAppointments] = useState([]);
+  const [appointmentsCursor, setAppointmentsCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [queueStatus, setQueueStatus] = useState(null);
   const [queueEntries, setQueueEntries] = useState([]);
   const [dailyReport, setDailyReport] = useState(null);
@@ -65,6 +80,17 @@ export default function StaffDashboard({ clinicId, staffProfileId, doctorProfile
   const [dateFilter, setDateFilter] = useState('all'); // all | today | week | month
   const ITEMS_PER_PAGE = 10;
 
+  // Today's schedule in full (one day is bounded) plus the first page of later appointments;
+  // "Load more" follows the cursor for the rest.
+  const fetchClinicAppointments = useCallback(async () => {
+    const [todayRes, upcomingRes] = await Promise.all([
+      appointmentAPI.listForClinic(clinicId, localDateParam()),
+      appointmentAPI.pageUpcomingForClinic(clinicId),
+    ]);
+    setAppointmentsCursor(upcomingRes.nextCursor);
+    return mergeAppointments(todayRes.data || [], upcomingRes.data || []);
+  }, [clinicId]);
+
   useEffect(() => {
     const loadData = async () => {
       if (!clinicId) {
@@ -73,9 +99,9 @@ export default function StaffDashboard({ clinicId, staffProfileId, doctorProfile
       setLoading(true);
       try {
         if (isStaff) {
-          const [appointmentRes, queueRes, reportRes, entriesRes, doctorRes, clinicRes] =
+          const [appointmentsData, queueRes, reportRes, entriesRes, doctorRes, clinicRes] =
             await Promise.all([
-              appointmentAPI.listForClinic(clinicId, null, 'upcoming'),
+              fetchClinicAppointments(),
               queueAPI.staffQueueStatus(clinicId),
               queueAPI.staffDailyReport(clinicId),
               queueAPI.staffQueueEntries(clinicId),
@@ -83,8 +109,6 @@ export default function StaffDashboard({ clinicId, staffProfileId, doctorProfile
               clinicAPI.getAll(),
             ]);
 
-          const appointmentsData = appointmentRes.data || [];
-
           // Mark appointments as NO_SHOW if > 3 hours past appointment time
           const now = new Date();
           const threeHoursInMs = 3 * 60 * 60 * 1000;
@@ -110,8 +134,7 @@ export default function StaffDashboard({ clinicId, staffProfileId, doctorProfile
           if (updatePromises.length > 0) {
             await Promise.all(updatePromises);
             // Re-fetch appointments to get updated statuses
-            const updatedRes = await appointmentAPI.listForClinic(clinicId, null, 'upcoming');
-            setAppointments(updatedRes.data || []);
+            setAppointments(await fetchClinicAppointments());
           } else {
             setAppointments(appointmentsData);
           }
@@ -171,13 +194,28 @@ export default function StaffDashboard({ clinicId, staffProfileId, doctorProfile
     };
 
     loadData();
-  }, [clinicId, doctorProfileId, isDoctor, isStaff, show]);
+  }, [clinicId, doctorProfileId, fetchClinicAppointments, isDoctor, isStaff, show]);
+
+  // a filtered date may be past the pages loaded so far, so its day is fetched on its own
+  useEffect(() => {
+    if (!isStaff || !clinicId || !filterDate) {
+      return;
+    }
+    appointmentAPI
+      .listForClinic(clinicId, filterDate)
+      .then((res) => setAppointments((current) => mergeAppointments(current, res.data || [])))
+      .catch((error) => show(error?.userMessage || 'Unable to load appointments for that date.', 'error'));
+  }, [clinicId, filterDate, isStaff, show]);
 
   const refreshAppointments = async () => {
     try {
       if (isStaff) {
-        const res = await appointmentAPI.listForClinic(clinicId, null, 'upcoming');
-        setAppointments(res.data || []);
+        let list = await fetchClinicAppointments();
+        if (filterDate) {
+          const res = await appointmentAPI.listForClinic(clinicId, filterDate);
+          list = mergeAppointments(list, res.data || []);
+        }
+        setAppointments(list);
       } else if (isDoctor && doctorProfileId) {
         const res = await appointmentAPI.listForDoctor(doctorProfileId);
         setAppointments(res.data || []);
@@ -187,6 +225,20 @@ export default function StaffDashboard({ clinicId, staffProfileId, doctorProfile
     }
   };
 
+  const loadMoreAppointments = async () => {
+    if (!appointmentsCursor) return;
+    setLoadingMore(true);
+    try {
+      const res = await appointmentAPI.pageUpcomingForClinic(clinicId, appointmentsCursor);
+      setAppointments((current) => mergeAppointments(current, res.data || []));
+      setAppointmentsCursor(res.nextCursor);
+    } catch (error) {
+      show(error?.userMessage || 'Unable to load more appointments.', 'error');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const refreshQueueStatus = async () => {
     try {
       const res = await queueAPI.staffQueueStatus(clinicId);
@@ -382,7 +434,12 @@ export default function StaffDashboard({ clinicId, staffProfileId, doctorProfile
         return;
       }
 
-      const conflict = appointments.some((a) => {
+      // the doctor's appointments that day, whether or not they are loaded here
+      const doctorDayRes = await appointmentAPI.listForDoctor(
+        Number(rescheduleDoctorId),
+        rescheduleDateTime.slice(0, 10)
+      );
+      const conflict = (doctorDayRes.data || []).some((a) => {
         return (
           Number(a.doctorId) === Number(rescheduleDoctorId) &&
           new Date(a.dateTime).getTime() === newDate.getTime() &&
@@ -1258,6 +1315,18 @@ export default function StaffDashboard({ clinicId, staffProfileId, doctorProfile
                     </Button>
                   </div>
                 )}
+                {isStaff && appointmentsCursor && (
+                  <div className="mt-4 flex justify-center">
+                    <Button
+                      variant="outline"
+                      size="sm"
+                      onClick={loadMoreAppointments}
+                      disabled={loadingMore}
+                    >
+                      {loadingMore ? 'Loading...' : 'Load more'}
+                    </Button>
+                  </div>
+                )}
               </CardContent>
             </Card>
           </div>
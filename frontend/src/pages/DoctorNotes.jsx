@@ -34,6 +34,8 @@ export default function DoctorNotes() {
   const [filterPatientName, setFilterPatientName] = useState('');
   const [filterDate, setFilterDate] = useState('');
   const [submitting, setSubmitting] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     if (!user) {
@@ -41,20 +43,43 @@ export default function DoctorNotes() {
     }
   }, [user, navigate]);
 
+  // one page at a time; "Load more" follows the cursor instead of fetching every appointment up front
+  const editableOnly = (res) =>
+    (res.data || []).filter((appointment) =>
+      editableStatuses.includes(String(appointment.status).toUpperCase())
+    );
+
+  const loadFirstPage = async () => {
+    const res = await appointmentAPI.pageForDoctor(doctorId);
+    setAppointments(editableOnly(res));
+    setNextCursor(res.nextCursor);
+  };
+
+  const loadMore = async () => {
+    if (!nextCursor) return;
+    setLoadingMore(true);
+    try {
+      const res = await appointmentAPI.pageForDoctor(doctorId, nextCursor);
+      setAppointments((current) => [...current, ...editableOnly(res)]);
+      setNextCursor(res.nextCursor);
+    } catch (error) {
+      show('Unable to load more appointments.', 'error');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   useEffect(() => {
     const loadAppointments = async () => {
       if (!doctorId) {
         setAppointments([]);
+        setNextCursor(null);
         setLoading(false);
         return;
       }
       setLoading(true);
       try {
-        const res = await appointmentAPI.listForDoctor(doctorId);
-        const filtered = (res.data || []).filter((appointment) =>
-          editableStatuses.includes(String(appointment.status).toUpperCase())
-        );
-        setAppointments(filtered);
+        await loadFirstPage();
       } catch (error) {
         show('Unable to load appointments.', 'error');
       } finally {
@@ -139,12 +164,7 @@ export default function DoctorNotes() {
       show('Notes saved.', 'success');
       setSelected(null);
       setNotes('');
-      const res = await appointmentAPI.listForDoctor(doctorId);
-      setAppointments(
-        (res.data || []).filter((appointment) =>
-          editableStatuses.includes(String(appointment.status).toUpperCase())
-        )
-      );
+      await loadFirstPage();
     } catch (error) {
       show('Unable to save notes.', 'error');
     } finally {
@@ -156,12 +176,7 @@ export default function DoctorNotes() {
     if (!doctorId) return;
     setLoading(true);
     try {
-      const res = await appointmentAPI.listForDoctor(doctorId);
-      setAppointments(
-        (res.data || []).filter((appointment) =>
-          editableStatuses.includes(String(appointment.status).toUpperCase())
-        )
-      );
+      await loadFirstPage();
     } catch (error) {
       show('Unable to refresh appointments.', 'error');
     } finally {
@@ -300,6 +315,13 @@ export default function DoctorNotes() {
                   ))}
                 </div>
               )}
+              {!loading && nextCursor && (
+                <div className="mt-4 flex justify-center">
+                  <Button variant="outline" size="sm" onClick={loadMore} disabled={loadingMore}>
+                    {loadingMore ? 'Loading...' : 'Load more'}
+                  </Button>
+                </div>
+              )}
             </CardContent>
           </Card>
 
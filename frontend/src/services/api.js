@@ -47,6 +47,27 @@ apiClient.interceptors.response.use(
   }
 );
 
+// Appointment listings come in pages of up to 100. getPage returns one page with the cursor of
+// the next (null after the last), for lists that load more on demand.
+const getPage = async (url, params = {}, cursor) => {
+  const res = await apiClient.get(url, { params: cursor ? { ...params, cursor } : params });
+  return { ...res, nextCursor: res.headers['x-next-cursor'] || null };
+};
+
+// Follows X-Next-Cursor until the last page. Only for lists bounded by their filters, such as one
+// day's appointments; anything open-ended uses getPage.
+const getAllPages = async (url, params = {}) => {
+  const first = await apiClient.get(url, { params });
+  const items = [...first.data];
+  let cursor = first.headers['x-next-cursor'];
+  while (cursor) {
+    const page = await apiClient.get(url, { params: { ...params, cursor } });
+    items.push(...page.data);
+    cursor = page.headers['x-next-cursor'];
+  }
+  return { ...first, data: items };
+};
+
 export const authAPI = {
   register: (data) => apiClient.post('/auth/register', data),
   login: (data) => apiClient.post('/auth/login', data),
@@ -54,18 +75,22 @@ export const authAPI = {
 };
 
 export const appointmentAPI = {
-  listForPatient: (patientId) => apiClient.get(`/patients/${patientId}/appointments`),
+  // a date range (YYYY-MM-DD, inclusive) filtered on the server; callers keep it bounded
+  listForPatient: (patientId, startDate, endDate) =>
+    getAllPages(`/patients/${patientId}/appointments`, { startDate, endDate }),
+
+  listForClinic: (clinicId, date) => getAllPages(`/clinics/${clinicId}/appointments`, { date }),
 
-  listForClinic: (clinicId, date, when) =>
-    when === 'upcoming'
-      ? apiClient.get(`/clinics/${clinicId}/appointments`)
-      : apiClient.get(`/clinics/${clinicId}/appointments`, { params: { date } }),
+  pageUpcomingForClinic: (clinicId, cursor) =>
+    getPage('/staff/appointments', { clinicId, type: 'upcoming' }, cursor),
 
   listForSpecialist: (specialistId, date) =>
-    apiClient.get(`/specialists/${specialistId}/appointments`, { params: { date } }),
+    getAllPages(`/specialists/${specialistId}/appointments`, { date }),
 
   listForDoctor: (doctorId, date) =>
-    apiClient.get(`/doctors/${doctorId}/appointments`, { params: { date } }),
+    getAllPages(`/doctors/${doctorId}/appointments`, { date }),
+
+  pageForDoctor: (doctorId, cursor) => getPage(`/doctors/${doctorId}/appointments`, {}, cursor),
 
   // Book/cancel
   book: (patientId, payload) => apiClient.post(`/patients/${patientId}/appointments`, payload),
@@ -97,6 +122,7 @@ export const patientAPI = {
 
 export const queueAPI = {
   getPatientStatus: (patientId) => apiClient.get(`/patients/${patientId}/queue-status`),
+  patientStatusStreamUrl: (patientId) => `${API_BASE_URL}/patients/${patientId}/queue-status/stream`,
   checkIn: (appointmentId) => apiClient.post(`/patients/appointments/${appointmentId}/check-in`),
   staffStart: (clinicId) => apiClient.post('/staff/queue/start', null, { params: { clinicId } }),
   staffPause: (clinicId) => apiClient.post('/staff/queue/pause', null, { params: { clinicId } }),
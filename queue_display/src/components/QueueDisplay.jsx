@@ -1,20 +1,48 @@
-import React, { useEffect, useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import ws from '../ws';
 import '../App.css';
 
+// entries keyed by queue number; next is the lowest visible number, as sent by the server
+function toSnapshot(entries) {
+  const queue = [...entries.values()].sort((a, b) => a.queueNumber - b.queueNumber);
+  return { total: queue.length, next: queue[0] ?? null, queue };
+}
+
 export default function QueueDisplay() {
   const [snapshot, setSnapshot] = useState({ total: 0, next: null, queue: [] });
+  const entriesRef = useRef(new Map());
+  const seqRef = useRef(null);
 
   useEffect(() => {
     const onMessage = (ev) => {
       try {
         const data = JSON.parse(ev.data);
-        if (data.type === 'queue_update') {
-          setSnapshot({
-            total: data.total ?? 0,
-            next: data.next ?? null,
-            queue: Array.isArray(data.queue) ? data.queue : [],
+        if (data.type === 'subscribed') {
+          seqRef.current = null; // the server follows up with a full queue_update
+        } else if (data.type === 'queue_update') {
+          const entries = new Map();
+          (Array.isArray(data.queue) ? data.queue : []).forEach((q) => entries.set(q.queueNumber, q));
+          entriesRef.current = entries;
+          seqRef.current = data.seq ?? null;
+          setSnapshot(toSnapshot(entries));
+        } else if (data.type === 'queue_delta') {
+          if (seqRef.current === null) return; // waiting for the baseline
+          if (data.seq <= seqRef.current) return; // already covered by the baseline
+          if (data.seq !== seqRef.current + 1) {
+            // missed an update: drop local state and ask for a full snapshot
+            seqRef.current = null;
+            ws.send({ type: 'resync' });
+            return;
+          }
+          const entries = entriesRef.current;
+          (data.changes ?? []).forEach((c) => {
+            if (c.op === 'added') entries.set(c.queueNumber, c);
+            else if (c.op === 'status' && entries.has(c.queueNumber)) {
+              entries.set(c.queueNumber, { ...entries.get(c.queueNumber), status: c.status });
+            } else if (c.op === 'removed') entries.delete(c.queueNumber);
           });
+          seqRef.current = data.seq;
+          setSnapshot(toSnapshot(entries));
         }
       } catch (e) {
         // ignore non-JSON or other messages
@@ -1,4 +1,8 @@
-const WS_URL = 'ws://localhost:8081/ws';
+// the display follows one clinic, chosen with ?clinicId=N on the page URL
+const clinicId = new URLSearchParams(window.location.search).get('clinicId');
+const WS_URL = clinicId
+  ? `ws://localhost:8081/ws?clinicId=${encodeURIComponent(clinicId)}`
+  : 'ws://localhost:8081/ws';
 
 let socket: WebSocket | null = null;
 let reconnectTimeout = 1000;